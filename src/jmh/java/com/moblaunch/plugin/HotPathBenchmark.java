@@ -0,0 +1,222 @@
+package com.moblaunch.plugin;
+
+import com.moblaunch.plugin.ConfigManager.SoundCue;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Sound;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.InputStreamReader;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * 热点路径基准测试
+ * 运行: mvn -Pbenchmark test-compile exec:exec (默认附带 -prof gc，同时输出 ops/s 与每次操作分配的字节数)
+ * Paper 类型使用动态代理桩实现，无需启动服务器；依赖插件实例的路径见 PluginPathBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HotPathBenchmark {
+    private static final int PLAYERS = 300;
+
+    private YamlConfiguration yaml;
+    private ConfigSnapshot cfg;
+    private ConfigManager.SoundConfig[] sounds;
+    private MessageTemplate template;
+    private String rawPattern;
+
+    private SessionTable sessions;
+    private UUID[] playerIds;
+    private UUID[] entityIds;
+    private int cursor;
+    private int pct;
+
+    private ChargeCurve curve;
+    private int tick;
+
+    private LaunchRegistry launches;
+    private int[] fallingIds;
+
+    @Setup
+    public void setup() {
+        yaml = YamlConfiguration.loadConfiguration(new InputStreamReader(
+                HotPathBenchmark.class.getResourceAsStream("/config.yml"), StandardCharsets.UTF_8));
+
+        cfg = ConfigSnapshot.compile(yaml, Logger.getLogger("benchmark"));
+        sounds = ConfigManager.compileSounds(yaml, Logger.getLogger("benchmark"));
+        if (sounds[SoundCue.CHARGING.ordinal()].sound == null)
+            throw new IllegalStateException("config.yml 中的 charging 音效无效");
+
+        rawPattern = "&a你以 &e{0}% &a的力量抛出了 &e{1}&a！";
+        template = MessageTemplate.compile(rawPattern, "&6[MobLaunch] ");
+
+        sessions = new SessionTable();
+        playerIds = new UUID[PLAYERS];
+        entityIds = new UUID[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            Player player = stubPlayer(UUID.randomUUID());
+            Entity entity = stubEntity(UUID.randomUUID(), player);
+            playerIds[i] = player.getUniqueId();
+            entityIds[i] = entity.getUniqueId();
+            // 一半玩家抱着生物
+            if ((i & 1) == 0)
+                sessions.open(player, entity);
+        }
+
+        curve = cfg.getDefaults().getChargeCurve();
+
+        // 每位玩家投出一只生物，查询的是其他实体 ID
+        launches = new LaunchRegistry();
+        fallingIds = new int[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            launches.add(i, TimeUnit.HOURS.toMillis(1));
+            fallingIds[i] = PLAYERS + i;
+        }
+    }
+
+    // --- 音效 ---
+    @Benchmark
+    public ConfigManager.SoundConfig soundTable() {
+        return sounds[SoundCue.CHARGING.ordinal()];
+    }
+
+    /**
+     * 旧实现：每次从 YAML 读取并解析
+     */
+    @Benchmark
+    public ConfigManager.SoundConfig soundYamlLegacy() {
+        String path = "charging";
+        if (!yaml.getBoolean("sounds." + path + ".enabled", true))
+            return ConfigManager.SoundConfig.DISABLED;
+        Sound sound = Sound.valueOf(yaml.getString("sounds." + path + ".sound", "none").toUpperCase());
+        return new ConfigManager.SoundConfig(sound, yaml.getDouble("sounds." + path + ".volume", 1.0),
+                yaml.getDouble("sounds." + path + ".pitch", 1.0), true);
+    }
+
+    // --- 动作栏 ---
+    @Benchmark
+    public Component displayBarFrame() {
+        pct = (pct + 5) % 101;
+        return cfg.getBarFrame(ChargeState.INCREASING, pct);
+    }
+
+    // --- 消息 ---
+    @Benchmark
+    public String messageTemplate() {
+        return template.format(75, "Pig");
+    }
+
+    @Benchmark
+    public String messageTemplateConstant() {
+        return template.format();
+    }
+
+    /**
+     * 旧实现：每次 MessageFormat 解析
+     */
+    @Benchmark
+    public String messageFormatLegacy() {
+        return org.bukkit.ChatColor.translateAlternateColorCodes('&',
+                "&6[MobLaunch] " + MessageFormat.format(rawPattern.replace("'", "''"), 75, "Pig"));
+    }
+
+    // --- 会话表 ---
+    @Benchmark
+    public PlayerSession sessionByPlayer() {
+        return sessions.get(playerIds[next()]);
+    }
+
+    @Benchmark
+    public PlayerSession sessionByEntity() {
+        return sessions.getByEntity(entityIds[next()]);
+    }
+
+    // --- 蓄力曲线 ---
+    /**
+     * 蓄力驱动每 tick 的查表：状态、百分比和音效
+     */
+    @Benchmark
+    public void chargeCycle(Blackhole bh) {
+        int t = tick;
+        tick = t + 1 < curve.length() ? t + 1 : 0;
+        bh.consume(curve.stateAt(t));
+        bh.consume(curve.percentAt(t));
+        bh.consume(curve.cueAt(t));
+    }
+
+    // --- 落地免伤 ---
+    /**
+     * 摔落伤害事件的登记表查询：受伤的大多是没有被投掷过的实体 (命中时条目只被移除一次)
+     */
+    @Benchmark
+    public boolean fallDamageLookup() {
+        return launches.remove(fallingIds[next()]);
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (i + 1) % PLAYERS;
+        return i;
+    }
+
+    // --- 桩实现 ---
+    private static Player stubPlayer(UUID id) {
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("getUniqueId", id);
+        answers.put("isValid", true);
+        answers.put("hasPermission", true);
+        return stub(Player.class, answers);
+    }
+
+    private static Entity stubEntity(UUID id, Player vehicle) {
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("getUniqueId", id);
+        answers.put("isValid", true);
+        answers.put("getVehicle", vehicle);
+        return stub(Entity.class, answers);
+    }
+
+    private static <T> T stub(Class<T> type, Map<String, Object> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (self, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return self == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(self);
+                        case "toString":
+                            return type.getSimpleName() + answers.get("getUniqueId");
+                        default:
+                            break;
+                    }
+                    Object answer = answers.get(method.getName());
+                    if (answer == null && method.getReturnType() == boolean.class)
+                        return false;
+                    return answer;
+                });
+        return type.cast(proxy);
+    }
+}
@@ -0,0 +1,171 @@
+package com.moblaunch.plugin;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.WorldMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import org.bukkit.Location;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.damage.DamageSource;
+import org.bukkit.damage.DamageType;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.player.PlayerToggleSneakEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 依赖插件实例的热点路径基准测试：抱起权限判断、抱起状态查询、蓄力驱动推进和摔落伤害监听
+ * 插件运行在 MockBukkit 模拟服务器上，会话通过真实的事件建立；基准方法直接调用插件代码，不推进模拟调度器
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PluginPathBenchmark {
+    private static final int PLAYERS = 300;
+    // 各声音提示在 config.yml 中的路径
+    private static final String[] CHARGE_SOUNDS = { "charging", "decreasing", "max-charge", "zero-charge" };
+
+    private ServerMock server;
+    private MobLaunch plugin;
+    private MobManager mobManager;
+    private PermissionCache permissions;
+    private SessionListener sessionListener;
+
+    private PlayerMock[] players;
+    private ChargeDriver.Group chargeGroup;
+    private EntityDamageEvent[] fallEvents;
+    private EntityDamageEvent[] attackEvents;
+    private int cursor;
+
+    @Setup
+    public void setup() throws Exception {
+        server = MockBukkit.mock();
+        WorldMock world = server.addSimpleWorld("world");
+        plugin = MockBukkit.load(MobLaunch.class);
+
+        // MockBukkit 会记录发给玩家的每个音效和动作栏，长时间运行会占满内存；发送本身是服务器的开销
+        File file = new File(plugin.getDataFolder(), "config.yml");
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        yaml.set("visuals.enable-action-bar", false);
+        for (String sound : CHARGE_SOUNDS)
+            yaml.set("sounds." + sound + ".enabled", false);
+        yaml.save(file);
+        plugin.getConfigManager().reload(false);
+
+        mobManager = plugin.getMobManager();
+        permissions = mobManager.getPermissionCache();
+        sessionListener = plugin.getSessionListener();
+
+        players = new PlayerMock[PLAYERS];
+        fallEvents = new EntityDamageEvent[PLAYERS];
+        attackEvents = new EntityDamageEvent[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            Location spot = new Location(world, (i % 20) * 8.5, 64, (i / 20) * 8.5);
+            players[i] = server.addPlayer();
+            players[i].teleport(spot);
+            Entity mob = world.spawnEntity(spot.clone().add(1, 0, 0), EntityType.PIG);
+            // 没有被投掷过的实体，摔落伤害的常见情形
+            fallEvents[i] = new EntityDamageEvent(mob, EntityDamageEvent.DamageCause.FALL,
+                    DamageSource.builder(DamageType.FALL).build(), 3.0);
+            attackEvents[i] = new EntityDamageEvent(mob, EntityDamageEvent.DamageCause.ENTITY_ATTACK,
+                    DamageSource.builder(DamageType.GENERIC).build(), 3.0);
+
+            // 一半玩家抱着生物
+            if ((i & 1) == 0) {
+                players[i].setSneaking(true);
+                server.getPluginManager().callEvent(new PlayerInteractEntityEvent(players[i], mob, EquipmentSlot.HAND));
+                players[i].setSneaking(false);
+            }
+        }
+        for (int t = 0; t < 5; t++)
+            server.getScheduler().performOneTick();
+
+        // 抱着生物的玩家全部开始蓄力，Paper 上它们都在同一个组中
+        for (int i = 0; i < PLAYERS; i += 2) {
+            players[i].setSneaking(true);
+            server.getPluginManager().callEvent(new PlayerToggleSneakEvent(players[i], true));
+        }
+        PlayerSession session = mobManager.getSessions().get(players[0].getUniqueId());
+        if (session == null || session.driverGroup == null)
+            throw new IllegalStateException("模拟服务器上没有建立蓄力会话");
+        chargeGroup = session.driverGroup;
+    }
+
+    @TearDown
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    // --- 抱起 ---
+    /**
+     * 抱起入口的权限判断 (缓存命中，过期后重新计算)
+     */
+    @Benchmark
+    public PermissionCache.Decision pickupPermission() {
+        return permissions.checkPickup(players[next()], EntityType.PIG);
+    }
+
+    /**
+     * 潜行、交互等事件入口的抱起状态查询，一半玩家抱着生物
+     */
+    @Benchmark
+    public boolean isPlayerHoldingMob() {
+        return mobManager.isPlayerHoldingMob(players[next()]);
+    }
+
+    // --- 蓄力驱动 ---
+    /**
+     * 蓄力驱动推进一次 (一个 tick)，组内为全部蓄力中的会话
+     */
+    @Benchmark
+    public int chargeDriverTick() {
+        chargeGroup.tickAll();
+        return chargeGroup.size;
+    }
+
+    // --- 伤害监听 ---
+    /**
+     * 摔落伤害：查询飞行登记表与投掷预算
+     */
+    @Benchmark
+    public boolean entityDamageFall() {
+        EntityDamageEvent event = fallEvents[next()];
+        sessionListener.onEntityDamage(event);
+        return event.isCancelled();
+    }
+
+    /**
+     * 其他伤害：监听器在原因判断处返回
+     */
+    @Benchmark
+    public boolean entityDamageOther() {
+        EntityDamageEvent event = attackEvents[next()];
+        sessionListener.onEntityDamage(event);
+        return event.isCancelled();
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (i + 1) % PLAYERS;
+        return i;
+    }
+}
@@ -0,0 +1,71 @@
+package com.moblaunch.plugin;
+
+import java.util.Arrays;
+
+/**
+ * 单个玩家的动作限流状态
+ * 每种动作一个令牌桶 (以 GCRA 形式实现：只记录下一个令牌的理论到达时间，一个 long 即可)，
+ * 另外记录潜行按下的去抖时间；检查过程只做整数运算，不分配对象
+ * 同一玩家的事件总是在其所在的线程上依次触发，因此不加锁
+ */
+public final class ActionLimiter {
+
+    /**
+     * 受限流的动作，对应 config.yml 中 rate-limits 下的各个节点
+     */
+    public enum Action {
+        PICKUP("pickup"),
+        CHARGE("charge"),
+        LAUNCH("launch");
+
+        private final String path;
+
+        Action(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    private final long[] theoreticalArrival;
+    private long lastSneakAt;
+    private boolean sneakSeen;
+
+    ActionLimiter() {
+        long now = System.nanoTime();
+        this.theoreticalArrival = new long[Action.values().length];
+        // 新建时令牌桶是满的
+        Arrays.fill(theoreticalArrival, now);
+    }
+
+    /**
+     * 尝试消耗一个令牌
+     *
+     * @param intervalNanos 生成一个令牌所需的时间
+     * @param burstNanos    允许的突发量 ((容量 - 1) * intervalNanos)
+     * @return 是否允许执行
+     */
+    public boolean tryAcquire(Action action, long now, long intervalNanos, long burstNanos) {
+        int i = action.ordinal();
+        long tat = theoreticalArrival[i];
+        if (tat - now < 0)
+            tat = now;
+        if (tat - now > burstNanos)
+            return false;
+        theoreticalArrival[i] = tat + intervalNanos;
+        return true;
+    }
+
+    /**
+     * 潜行按下去抖：距上次被接受的按下不足 windowNanos 时返回 false
+     */
+    public boolean acceptSneak(long now, long windowNanos) {
+        if (sneakSeen && now - lastSneakAt < windowNanos)
+            return false;
+        sneakSeen = true;
+        lastSneakAt = now;
+        return true;
+    }
+}
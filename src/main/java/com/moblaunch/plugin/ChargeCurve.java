@@ -0,0 +1,193 @@
+package com.moblaunch.plugin;
+
+import com.moblaunch.plugin.ConfigManager.SoundCue;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * 蓄力曲线表 (不可变)
+ * 加载配置时把一个完整的蓄力周期 (增长 -> 满力停顿 -> 衰减 -> 零力停顿) 展开为按周期内 tick 序号索引的表，
+ * 每个 tick 的状态、百分比和音效只需一次查表；不推进的 tick (increment-ticks > 1 时) 状态为 null
+ * 增长段的形状由曲线决定，衰减段是增长段的倒序
+ */
+public final class ChargeCurve {
+    /**
+     * 增长段的形状
+     */
+    public enum Shape {
+        LINEAR,
+        EASE_IN,
+        EASE_OUT,
+        CUSTOM
+    }
+
+    private final ChargeState[] states;
+    private final byte[] percents;
+    private final SoundCue[] cues;
+
+    private ChargeCurve(ChargeState[] states, byte[] percents, SoundCue[] cues) {
+        this.states = states;
+        this.percents = percents;
+        this.cues = cues;
+    }
+
+    /**
+     * 编译蓄力周期
+     *
+     * @param step           线性曲线每步增加的百分比，同时决定增长段的步数 (100/step 向上取整)
+     * @param incrementTicks 每隔多少 tick 推进一步
+     * @param points         自定义曲线的控制点 (百分比，沿增长段均匀分布)，其他曲线忽略
+     */
+    static ChargeCurve compile(Shape shape, List<Integer> points, int step, int incrementTicks, int pauseAtMax,
+            int pauseAtZero, Logger logger) {
+        int riseSteps = (100 + step - 1) / step;
+        if (shape == Shape.CUSTOM && (points == null || points.size() < 2)) {
+            logger.warning("自定义蓄力曲线至少需要 2 个控制点 (路径: charge.points)，改用 linear");
+            shape = Shape.LINEAR;
+        }
+
+        // 增长段保持单调：自定义控制点下降的部分按前一步的值保持
+        int[] rise = new int[riseSteps];
+        boolean flattened = false;
+        for (int k = 1; k <= riseSteps; k++) {
+            int pct = risePercent(shape, points, step, k, riseSteps);
+            if (k > 1 && pct < rise[k - 2]) {
+                pct = rise[k - 2];
+                flattened = true;
+            }
+            rise[k - 1] = pct;
+        }
+        if (flattened)
+            logger.warning("自定义蓄力曲线的控制点应当递增 (路径: charge.points)，下降的部分已按前一个值保持");
+        // 增长段最后一步总是到达 100，之后进入满力停顿
+        rise[riseSteps - 1] = 100;
+
+        int maxPause = Math.max(1, pauseAtMax);
+        int zeroPause = Math.max(1, pauseAtZero);
+        int cycleSteps = riseSteps + maxPause + riseSteps + zeroPause;
+
+        ChargeState[] stepStates = new ChargeState[cycleSteps];
+        int[] stepPercents = new int[cycleSteps];
+        SoundCue[] stepCues = new SoundCue[cycleSteps];
+        int n = 0;
+        int previous = 0;
+
+        // 增长：每跨过一个 10% 档位播放一次蓄力音效
+        for (int k = 0; k < riseSteps; k++, n++) {
+            int pct = rise[k];
+            stepPercents[n] = pct;
+            if (pct >= 100) {
+                stepStates[n] = ChargeState.MAX_PAUSE;
+                stepCues[n] = SoundCue.MAX_CHARGE;
+            } else {
+                stepStates[n] = ChargeState.INCREASING;
+                if (pct / 10 > previous / 10)
+                    stepCues[n] = SoundCue.CHARGING;
+            }
+            previous = pct;
+        }
+        // 满力停顿：最后一步切换为衰减状态
+        for (int j = 1; j <= maxPause; j++, n++) {
+            stepPercents[n] = 100;
+            stepStates[n] = j >= pauseAtMax ? ChargeState.DECREASING : ChargeState.MAX_PAUSE;
+        }
+        // 衰减：增长段倒序，最后一步归零
+        previous = 100;
+        for (int k = riseSteps - 2; k >= -1; k--, n++) {
+            int pct = k >= 0 ? rise[k] : 0;
+            stepPercents[n] = pct;
+            if (pct <= 0) {
+                stepStates[n] = ChargeState.ZERO_PAUSE;
+                stepCues[n] = SoundCue.ZERO_CHARGE;
+            } else {
+                stepStates[n] = ChargeState.DECREASING;
+                if ((pct + 9) / 10 < (previous + 9) / 10)
+                    stepCues[n] = SoundCue.DECREASING;
+            }
+            previous = pct;
+        }
+        // 零力停顿：最后一步切换回增长状态
+        for (int j = 1; j <= zeroPause; j++, n++) {
+            stepPercents[n] = 0;
+            stepStates[n] = j >= pauseAtZero ? ChargeState.INCREASING : ChargeState.ZERO_PAUSE;
+        }
+
+        // 按 tick 展开：每 incrementTicks 个 tick 中只有第一个推进
+        int ticks = cycleSteps * incrementTicks;
+        ChargeState[] states = new ChargeState[ticks];
+        byte[] percents = new byte[ticks];
+        SoundCue[] cues = new SoundCue[ticks];
+        for (int t = 0; t < ticks; t++) {
+            int s = t / incrementTicks;
+            percents[t] = (byte) stepPercents[s];
+            if (t % incrementTicks == 0) {
+                states[t] = stepStates[s];
+                cues[t] = stepCues[s];
+            }
+        }
+        return new ChargeCurve(states, percents, cues);
+    }
+
+    private static int risePercent(Shape shape, List<Integer> points, int step, int k, int riseSteps) {
+        double t = (double) k / riseSteps;
+        double value;
+        switch (shape) {
+            case EASE_IN:
+                value = 100 * t * t;
+                break;
+            case EASE_OUT:
+                value = 100 * (1 - (1 - t) * (1 - t));
+                break;
+            case CUSTOM: {
+                double pos = t * (points.size() - 1);
+                int i = Math.min((int) pos, points.size() - 2);
+                double frac = pos - i;
+                value = points.get(i) + (points.get(i + 1) - points.get(i)) * frac;
+                break;
+            }
+            default:
+                // 与原先的逐步累加一致
+                value = Math.min(100, k * step);
+                break;
+        }
+        // 最后一步之前不到 100 (单调性由 compile 保证)
+        return Math.max(1, Math.min(99, (int) Math.round(value)));
+    }
+
+    static Shape parseShape(String value, Logger logger) {
+        if (value == null)
+            return Shape.LINEAR;
+        try {
+            return Shape.valueOf(value.toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            logger.warning("无效的蓄力曲线: " + value + " (路径: charge.curve)，改用 linear");
+            return Shape.LINEAR;
+        }
+    }
+
+    /**
+     * 一个周期的 tick 数
+     */
+    public int length() {
+        return states.length;
+    }
+
+    /**
+     * 该 tick 推进到的状态，不推进的 tick 返回 null
+     */
+    public ChargeState stateAt(int tick) {
+        return states[tick];
+    }
+
+    public int percentAt(int tick) {
+        return percents[tick];
+    }
+
+    /**
+     * 该 tick 要播放的音效，没有时返回 null
+     */
+    public SoundCue cueAt(int tick) {
+        return cues[tick];
+    }
+}
@@ -0,0 +1,321 @@
+package com.moblaunch.plugin;
+
+import com.moblaunch.plugin.ConfigManager.SoundCue;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 蓄力驱动器
+ * 所有正在蓄力的会话共享驱动任务，不再为每次按下潜行或每个会话创建新的任务：
+ * 会话按组放在紧凑数组中，每个组由一个定时任务在一次遍历中推进组内全部会话；
+ * Paper/Spigot 上只有一个组，由主线程定时任务推进；
+ * Folia 上按区域 section 网格分组，由网格所在区域的区域调度器推进，玩家离开该区域时交给新区域的组
+ * 组内没有蓄力中的会话时取消任务并移除，空闲的持有者不占用任何任务
+ * 每 tick 的状态、百分比和音效从所在世界预先展开的蓄力曲线表 (ChargeCurve) 中读取
+ */
+public class ChargeDriver {
+    // 动作栏在客户端约 2 秒后淡出，帧不变时按此间隔重发
+    private static final int BAR_REFRESH_TICKS = 30;
+
+    private final MobLaunch plugin;
+    private final boolean folia;
+    // 分组网格等于 Folia 的 section 大小，一个组只会被一个区域线程访问
+    private final int sectionShift;
+    private final Map<UUID, Map<Long, Group>> groups = new ConcurrentHashMap<>();
+    private Group global;
+
+    public ChargeDriver(MobLaunch plugin) {
+        this.plugin = plugin;
+        this.folia = isFolia();
+        this.sectionShift = folia ? regionSectionShift() : 0;
+    }
+
+    static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Folia 区域划分的最小单位 (2^n 个区块见方的 section)，一个 section 总是整体属于同一个区域
+     * 读取失败时返回 0，即按单个区块划分，仍然不会跨区域
+     */
+    static int regionSectionShift() {
+        try {
+            Class<?> regions = Class.forName("io.papermc.paper.threadedregions.TickRegions");
+            return (Integer) regions.getMethod("getRegionChunkShift").invoke(null);
+        } catch (Throwable e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 在玩家所属线程上开始 (或重新开始) 蓄力
+     */
+    public void start(PlayerSession session) {
+        session.beginCharge();
+        attach(session);
+    }
+
+    /**
+     * 停止蓄力，返回停止时的蓄力百分比
+     * 会话由所在组在下一次推进时移出，不跨线程修改组的数组
+     */
+    public int stop(PlayerSession session) {
+        return session.endCharge();
+    }
+
+    /**
+     * 会话结束时调用，释放驱动持有的全部资源
+     */
+    public void release(PlayerSession session) {
+        stop(session);
+    }
+
+    /**
+     * 当前被驱动的蓄力会话数量
+     */
+    public int getActiveCount() {
+        int n = global != null ? global.size : 0;
+        for (Map<Long, Group> cells : groups.values()) {
+            for (Group group : cells.values())
+                n += group.size;
+        }
+        return n;
+    }
+
+    /**
+     * 把蓄力中的会话放入玩家当前位置的组；会话仍在某个组中时由该组继续推进 (或在离开区域时移交)
+     */
+    private void attach(PlayerSession session) {
+        if (session.driverGroup != null || !session.isCharging())
+            return;
+        Player player = session.getPlayer();
+        if (!player.isValid())
+            return;
+        groupFor(player.getLocation()).add(session);
+    }
+
+    private Group groupFor(Location loc) {
+        if (!folia) {
+            if (global == null)
+                global = new Group(null, 0L);
+            global.ensureRunning(loc);
+            return global;
+        }
+        int cx = (loc.getBlockX() >> 4) >> sectionShift;
+        int cz = (loc.getBlockZ() >> 4) >> sectionShift;
+        long key = ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+        UUID worldId = loc.getWorld().getUID();
+        Map<Long, Group> cells = groups.computeIfAbsent(worldId, k -> new ConcurrentHashMap<>());
+        Group group = cells.computeIfAbsent(key, k -> new Group(worldId, key));
+        group.ensureRunning(loc);
+        return group;
+    }
+
+    /**
+     * 玩家已进入其他区域：在玩家所属线程上重新放入当地的组
+     */
+    private void handOver(PlayerSession session) {
+        Runnable readopt = () -> attach(session);
+        try {
+            session.getPlayer().getScheduler().run(plugin, (t) -> readopt.run(), null);
+        } catch (Throwable e) {
+            readopt.run();
+        }
+    }
+
+    /**
+     * 一个区域内全部蓄力会话的紧凑数组
+     * 只会被所属区域的线程 (Paper 上为主线程) 访问
+     */
+    final class Group {
+        final UUID worldId;
+        final long key;
+        PlayerSession[] active = new PlayerSession[8];
+        int size;
+
+        // 在加入会话的线程上创建，由停用插件的线程取消
+        volatile ScheduledTask regionTask;
+        volatile BukkitTask timer;
+
+        Group(UUID worldId, long key) {
+            this.worldId = worldId;
+            this.key = key;
+        }
+
+        void ensureRunning(Location anchor) {
+            if (regionTask != null || timer != null)
+                return;
+            synchronized (this) {
+                if (regionTask != null || timer != null)
+                    return;
+                if (folia) {
+                    regionTask = Bukkit.getRegionScheduler().runAtFixedRate(plugin, anchor.getWorld(),
+                            anchor.getBlockX() >> 4, anchor.getBlockZ() >> 4, (t) -> tickAll(), 1L, 1L);
+                } else {
+                    timer = Bukkit.getScheduler().runTaskTimer(plugin, this::tickAll, 1L, 1L);
+                }
+            }
+        }
+
+        synchronized void stop() {
+            if (regionTask != null) {
+                regionTask.cancel();
+                regionTask = null;
+            }
+            if (timer != null) {
+                timer.cancel();
+                timer = null;
+            }
+        }
+
+        void add(PlayerSession session) {
+            if (size == active.length)
+                active = Arrays.copyOf(active, size * 2);
+            session.driverIndex = size;
+            active[size++] = session;
+            session.driverGroup = this;
+        }
+
+        /**
+         * 用末尾元素填补位置 i
+         */
+        private void removeAt(int i) {
+            PlayerSession session = active[i];
+            int last = --size;
+            PlayerSession moved = active[last];
+            active[i] = moved;
+            moved.driverIndex = i;
+            active[last] = null;
+            session.driverIndex = -1;
+            session.driverGroup = null;
+        }
+
+        /**
+         * 推进组内全部会话一个 tick，由组的定时任务调用 (基准测试也直接调用)
+         */
+        void tickAll() {
+            if (size == 0) {
+                retire();
+                return;
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < size;) {
+                PlayerSession session = active[i];
+                if (session.isCharging() && folia && !Bukkit.isOwnedByCurrentRegion(session.getPlayer())) {
+                    removeAt(i);
+                    handOver(session);
+                    continue;
+                }
+                if (session.isCharging())
+                    tick(session);
+                // 停止蓄力的会话在这里移出，由末尾元素填补时不前进下标
+                if (!session.isCharging())
+                    removeAt(i);
+                else
+                    i++;
+            }
+            plugin.getMetrics().recordChargeTick(System.nanoTime() - start);
+        }
+
+        /**
+         * 组已空：停止任务并从表中移除
+         */
+        private void retire() {
+            stop();
+            if (worldId != null) {
+                Map<Long, Group> cells = groups.get(worldId);
+                if (cells != null)
+                    cells.remove(key, this);
+            }
+        }
+
+        void clear() {
+            stop();
+            for (int i = 0; i < size; i++) {
+                active[i].driverIndex = -1;
+                active[i].driverGroup = null;
+            }
+            Arrays.fill(active, 0, size, null);
+            size = 0;
+        }
+    }
+
+    private void tick(PlayerSession s) {
+        if (!s.isCharging())
+            return;
+        ConfigSnapshot cfg = plugin.getConfigManager().get();
+        Player player = s.getPlayer();
+        WorldSettings world = s.worldSettings(cfg, player.getWorld());
+        ChargeCurve curve = world.getChargeCurve();
+        // 重载配置或切换世界后周期长度可能变化
+        int t = s.cycleTick < curve.length() ? s.cycleTick : 0;
+        s.cycleTick = t + 1 < curve.length() ? t + 1 : 0;
+        ChargeState state = curve.stateAt(t);
+        if (state == null)
+            return;
+
+        MobManager mobManager = plugin.getMobManager();
+        if (!mobManager.isPlayerHoldingMob(player)) {
+            release(s);
+            return;
+        }
+
+        int chargePercent = curve.percentAt(t);
+        s.chargeState = state;
+        s.setChargePercent(chargePercent);
+
+        SoundCue cue = curve.cueAt(t);
+        if (cue == SoundCue.CHARGING || cue == SoundCue.DECREASING) {
+            // 蓄力/衰减音效：每跨过 10% 播放一次，音调随百分比升降
+            ConfigManager.SoundConfig sc = cfg.getSound(cue);
+            if (sc.enabled)
+                mobManager.playSound(player, cue, sc.pitch + (chargePercent / 100.0f));
+        } else if (cue != null) {
+            mobManager.playSound(player, cue);
+        }
+
+        if (cfg.isEnableActionBar()) {
+            displayBar(s, player, cfg);
+        }
+        if (cfg.isPreviewEnabled()) {
+            mobManager.getTrajectoryPreview().render(s, player, cfg, world);
+        }
+    }
+
+    private void displayBar(PlayerSession s, Player p, ConfigSnapshot cfg) {
+        // 帧在加载配置时已预先构建，只有帧变化或即将淡出时才发送
+        Component frame = cfg.getBarFrame(s.chargeState, s.getChargePercent());
+        if (frame != s.lastFrame || ++s.ticksSinceSend >= BAR_REFRESH_TICKS) {
+            p.sendActionBar(frame);
+            s.lastFrame = frame;
+            s.ticksSinceSend = 0;
+        }
+    }
+
+    /**
+     * 插件禁用时取消全部驱动任务
+     */
+    public void shutdown() {
+        if (global != null)
+            global.clear();
+        for (Map<Long, Group> cells : groups.values()) {
+            for (Group group : cells.values())
+                group.clear();
+        }
+        groups.clear();
+    }
+}
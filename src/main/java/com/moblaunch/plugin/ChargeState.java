@@ -0,0 +1,12 @@
+package com.moblaunch.plugin;
+
+/**
+ * 蓄力状态机的状态
+ * 增长 -> 满力停顿 -> 衰减 -> 零力停顿 -> 增长 ...
+ */
+public enum ChargeState {
+    INCREASING,
+    MAX_PAUSE,
+    DECREASING,
+    ZERO_PAUSE
+}
@@ -1,109 +1,194 @@
 package com.moblaunch.plugin;
 
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
 import org.bukkit.Sound;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.entity.EntityType;
-
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
- * 配置管理器 - 修复音效读取与物理参数
+ * 配置管理器
+ * 配置被编译为不可变的 ConfigSnapshot，通过一个 volatile 引用发布；
+ * 重载在异步线程上解析并校验，成功后整体替换，解析失败时保留旧快照；运行期间不会写回配置文件
  */
 public class ConfigManager {
-    private final MobLaunch plugin;
-    private Set<EntityType> allowedMobs;
-
-    // 物理参数 (简化为力度+偏移，保证抛物线自然)
-    private double velocityMultiplier;
-    private double verticalBias;
-
-    // 蓄力参数
-    private int chargeStep;
-    private int chargeIncrementTicks;
-    private int pauseAtMaxTicks;
-    private int pauseAtZeroTicks;
-
-    // 开关
-    private boolean disableFallDamage;
-    private boolean consumeNametagCreative;
-    private boolean enableActionBar;
+    private static final String CONFIG_FILE_NAME = "config.yml";
 
-    // 视觉
-    private String barChar;
-    private int barLength;
-    private String colorCharging;
-    private String colorFull;
-    private String colorDecreasing;
-
-    private String messagePrefix;
+    private final MobLaunch plugin;
+    private volatile ConfigSnapshot snapshot;
+    private final Object reloadLock = new Object();
+    private ConfigWatcher watcher;
 
     public ConfigManager(MobLaunch plugin) {
         this.plugin = plugin;
-        this.allowedMobs = new HashSet<>();
+        this.snapshot = ConfigSnapshot.compile(new YamlConfiguration(), Logger.getLogger("MobLaunch"));
+    }
+
+    /**
+     * 获取当前配置快照
+     * 同一次操作中需要读取多个参数时，只调用一次并复用返回的快照
+     */
+    public ConfigSnapshot get() {
+        return snapshot;
     }
 
+    /**
+     * 启用时同步加载配置；配置文件不存在时释放默认配置
+     * 配置文件格式错误时使用 jar 包内的默认配置，不会覆盖玩家的文件
+     */
     public void loadConfig() {
-        plugin.saveDefaultConfig();
-        plugin.reloadConfig();
+        File file = new File(plugin.getDataFolder(), CONFIG_FILE_NAME);
+        if (!file.exists()) {
+            plugin.saveResource(CONFIG_FILE_NAME, false);
+        }
 
-        FileConfiguration config = plugin.getConfig();
-        config.options().copyDefaults(true);
+        ConfigSnapshot next;
+        try {
+            next = parse(file);
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().log(Level.SEVERE, "无法读取 config.yml，本次使用默认配置", e);
+            next = ConfigSnapshot.compile(loadDefaults(), plugin.getLogger());
+        }
+        publish(next);
+    }
 
-        loadAllowedMobs(config);
+    /**
+     * 在异步线程上重新解析配置文件并替换快照
+     * 成功后使权限缓存失效；reloadLanguage 为 true 或消息前缀变化时同时重新加载语言文件
+     *
+     * @return 完成时返回新的快照；解析失败时以异常结束，旧快照保持不变
+     */
+    public CompletableFuture<ConfigSnapshot> reloadAsync(boolean reloadLanguage) {
+        CompletableFuture<ConfigSnapshot> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                future.complete(reload(reloadLanguage));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        try {
+            Bukkit.getAsyncScheduler().runNow(plugin, (t) -> task.run());
+        } catch (Throwable e) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+        }
+        return future;
+    }
 
-        // 物理
-        velocityMultiplier = config.getDouble("launch.velocity-multiplier", 1.8);
-        verticalBias = config.getDouble("launch.vertical-bias", 0.3);
+    /**
+     * 同步重载，调用方负责在非游戏线程上执行 (异步任务或文件监视线程)
+     */
+    ConfigSnapshot reload(boolean reloadLanguage) throws IOException, InvalidConfigurationException {
+        synchronized (reloadLock) {
+            ConfigSnapshot previous = snapshot;
+            ConfigSnapshot next = parse(new File(plugin.getDataFolder(), CONFIG_FILE_NAME));
+            publish(next);
+
+            MobManager mobManager = plugin.getMobManager();
+            if (mobManager != null)
+                mobManager.getPermissionCache().invalidateAll();
+            LanguageManager languageManager = plugin.getLanguageManager();
+            if (languageManager != null
+                    && (reloadLanguage || !previous.getMessagePrefix().equals(next.getMessagePrefix())))
+                languageManager.loadLanguage();
+            return next;
+        }
+    }
 
-        // 蓄力
-        chargeStep = config.getInt("charge.step-percentage", 5);
-        chargeIncrementTicks = config.getInt("charge.increment-ticks", 1);
-        pauseAtMaxTicks = config.getInt("charge.pause-at-max-ticks", 15);
-        pauseAtZeroTicks = config.getInt("charge.pause-at-zero-ticks", 15);
+    /**
+     * 停止文件监视 (插件禁用时调用)
+     */
+    public void shutdown() {
+        synchronized (reloadLock) {
+            if (watcher != null) {
+                watcher.stop();
+                watcher = null;
+            }
+        }
+    }
 
-        // 保护与开关
-        disableFallDamage = config.getBoolean("protection.disable-fall-damage", true);
-        consumeNametagCreative = config.getBoolean("protection.consume-nametag-creative", false);
+    private ConfigSnapshot parse(File file) throws IOException, InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.load(file);
+        config.setDefaults(loadDefaults());
+        return ConfigSnapshot.compile(config, plugin.getLogger());
+    }
 
-        // 视觉
-        enableActionBar = config.getBoolean("visuals.enable-action-bar", true);
-        barChar = config.getString("visuals.bar-char", "|");
-        barLength = config.getInt("visuals.bar-length", 40);
-        colorCharging = config.getString("visuals.color-charging", "&a");
-        colorFull = config.getString("visuals.color-full", "&6");
-        colorDecreasing = config.getString("visuals.color-decreasing", "&c");
+    /**
+     * jar 包内的默认配置，旧版本的 config.yml 缺少的键从这里读取
+     */
+    private YamlConfiguration loadDefaults() {
+        InputStream stream = plugin.getResource(CONFIG_FILE_NAME);
+        if (stream == null)
+            return new YamlConfiguration();
+        return YamlConfiguration.loadConfiguration(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    }
 
-        messagePrefix = config.getString("message-prefix", "&6[MobLaunch] ");
+    private void publish(ConfigSnapshot next) {
+        synchronized (reloadLock) {
+            snapshot = next;
+            updateWatcher(next.isAutoReload());
+        }
+    }
 
-        plugin.saveConfig();
+    private void updateWatcher(boolean enabled) {
+        if (enabled && watcher == null) {
+            watcher = new ConfigWatcher(plugin, new File(plugin.getDataFolder(), CONFIG_FILE_NAME).toPath());
+            if (!watcher.start())
+                watcher = null;
+        } else if (!enabled && watcher != null) {
+            watcher.stop();
+            watcher = null;
+        }
     }
 
-    private void loadAllowedMobs(FileConfiguration config) {
-        allowedMobs.clear();
-        List<String> mobStrings = config.getStringList("allowed-mobs");
-        if (mobStrings.isEmpty()) {
-            mobStrings.add("PIG");
-            config.set("allowed-mobs", mobStrings);
+    // --- 音效 ---
+    /**
+     * 插件使用的全部音效，对应 config.yml 中 sounds 下的各个节点
+     */
+    public enum SoundCue {
+        PICKUP("pickup"),
+        PUTDOWN("putdown"),
+        CHARGING("charging"),
+        DECREASING("decreasing"),
+        MAX_CHARGE("max-charge"),
+        ZERO_CHARGE("zero-charge"),
+        LAUNCH("launch");
+
+        private final String path;
+
+        SoundCue(String path) {
+            this.path = path;
         }
-        for (String mobString : mobStrings) {
-            try {
-                allowedMobs.add(EntityType.valueOf(mobString.toUpperCase()));
-            } catch (IllegalArgumentException e) {
-                plugin.getLogger().warning("无效的生物类型: " + mobString);
-            }
+
+        public String getPath() {
+            return path;
         }
     }
 
-    // --- 音效读取辅助类 ---
-    public static class SoundConfig {
-        public Sound sound;
-        public float volume;
-        public float pitch;
-        public boolean enabled;
+    /**
+     * 已编译的音效配置 (不可变)
+     */
+    public static final class SoundConfig {
+        public static final SoundConfig DISABLED = new SoundConfig(null, 0, 0, false);
+
+        public final Sound sound;
+        public final float volume;
+        public final float pitch;
+        public final boolean enabled;
 
         public SoundConfig(Sound sound, double volume, double pitch, boolean enabled) {
             this.sound = sound;
@@ -113,101 +198,87 @@ public class ConfigManager {
         }
     }
 
-    public SoundConfig getSound(String path) {
-        FileConfiguration config = plugin.getConfig();
+    /**
+     * 将 sounds 节点一次性编译为按 SoundCue 序号索引的音效表
+     * 无效的音效名只在加载时警告一次
+     */
+    static SoundConfig[] compileSounds(ConfigurationSection config, Logger logger) {
+        SoundCue[] cues = SoundCue.values();
+        SoundConfig[] table = new SoundConfig[cues.length];
+        for (SoundCue cue : cues) {
+            table[cue.ordinal()] = compileSound(config, cue.getPath(), logger);
+        }
+        return table;
+    }
+
+    private static SoundConfig compileSound(ConfigurationSection config, String path, Logger logger) {
+        String base = "sounds." + path;
 
         // 1. 检查是否启用
-        if (!config.getBoolean("sounds." + path + ".enabled", true)) {
-            return new SoundConfig(null, 0, 0, false);
+        if (!config.getBoolean(base + ".enabled", true)) {
+            return SoundConfig.DISABLED;
         }
 
-        String soundName = config.getString("sounds." + path + ".sound", "none");
+        String soundName = config.getString(base + ".sound", "none");
         if ("none".equalsIgnoreCase(soundName)) {
-            return new SoundConfig(null, 0, 0, false);
+            return SoundConfig.DISABLED;
         }
 
-        Sound sound = null;
+        Sound sound;
         try {
             sound = Sound.valueOf(soundName.toUpperCase());
         } catch (IllegalArgumentException e) {
             // 2. 如果音效名无效，打印警告，方便排查
-            plugin.getLogger().log(Level.WARNING, "配置文件中的音效名称无效: " + soundName + " (路径: sounds." + path + ")");
-            plugin.getLogger().log(Level.WARNING, "请检查拼写或服务器版本支持的音效列表。");
-            return new SoundConfig(null, 0, 0, false);
+            logger.log(Level.WARNING, "配置文件中的音效名称无效: " + soundName + " (路径: " + base + ")");
+            logger.log(Level.WARNING, "请检查拼写或服务器版本支持的音效列表。");
+            return SoundConfig.DISABLED;
         }
 
-        double vol = config.getDouble("sounds." + path + ".volume", 1.0);
-        double pit = config.getDouble("sounds." + path + ".pitch", 1.0);
+        double vol = config.getDouble(base + ".volume", 1.0);
+        double pit = config.getDouble(base + ".pitch", 1.0);
 
         return new SoundConfig(sound, vol, pit, true);
     }
 
-    // Getters
-    public List<EntityType> getAllowedMobs() {
-        return new ArrayList<>(allowedMobs);
-    }
-
-    public boolean isMobAllowed(EntityType type) {
-        return allowedMobs.contains(type);
-    }
-
-    public double getVelocityMultiplier() {
-        return velocityMultiplier;
-    }
-
-    public double getVerticalBias() {
-        return verticalBias;
-    }
-
-    public int getChargeStep() {
-        return chargeStep;
-    }
-
-    public int getChargeIncrementTicks() {
-        return chargeIncrementTicks;
-    }
-
-    public int getPauseAtMaxTicks() {
-        return pauseAtMaxTicks;
-    }
-
-    public int getPauseAtZeroTicks() {
-        return pauseAtZeroTicks;
-    }
-
-    public boolean isDisableFallDamage() {
-        return disableFallDamage;
-    }
-
-    public boolean isConsumeNametagCreative() {
-        return consumeNametagCreative;
-    }
-
-    public boolean isEnableActionBar() {
-        return enableActionBar;
-    }
-
-    public String getBarChar() {
-        return barChar;
-    }
-
-    public int getBarLength() {
-        return barLength;
-    }
-
-    public String getColorCharging() {
-        return colorCharging;
-    }
-
-    public String getColorFull() {
-        return colorFull;
-    }
-
-    public String getColorDecreasing() {
-        return colorDecreasing;
-    }
-
-    public String getMessagePrefix() {
-        return messagePrefix;
+    // --- 动作栏 ---
+    /**
+     * 预先构建每个 (状态, 填充格数) 的动作栏帧
+     */
+    static Component[][] compileBarFrames(int len, String ch, String colorCharging, String colorFull,
+            String colorDecreasing) {
+        len = Math.max(0, len);
+        LegacyComponentSerializer serializer = LegacyComponentSerializer.legacySection();
+        ChargeState[] states = ChargeState.values();
+        Component[][] table = new Component[states.length][101];
+
+        Component zeroFrame = serializer.deserialize(
+                ChatColor.GRAY + "[ " + ChatColor.YELLOW + "松开潜行放下生物" + ChatColor.GRAY + " ]");
+        Arrays.fill(table[ChargeState.ZERO_PAUSE.ordinal()], zeroFrame);
+
+        for (ChargeState state : states) {
+            if (state == ChargeState.ZERO_PAUSE)
+                continue;
+            String color = colorCharging;
+            if (state == ChargeState.MAX_PAUSE)
+                color = colorFull;
+            else if (state == ChargeState.DECREASING)
+                color = colorDecreasing;
+            color = ChatColor.translateAlternateColorCodes('&', color);
+
+            Component[] byFilled = new Component[len + 1];
+            for (int filled = 0; filled <= len; filled++) {
+                StringBuilder sb = new StringBuilder(color);
+                for (int i = 0; i < filled; i++)
+                    sb.append(ch);
+                sb.append(ChatColor.WHITE);
+                for (int i = filled; i < len; i++)
+                    sb.append(ch);
+                byFilled[filled] = serializer.deserialize(sb.toString());
+            }
+            for (int pct = 0; pct <= 100; pct++) {
+                table[state.ordinal()][pct] = byFilled[(int) (len * (pct / 100.0))];
+            }
+        }
+        return table;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,501 @@
+package com.moblaunch.plugin;
+
+import com.moblaunch.plugin.ConfigManager.SoundConfig;
+import com.moblaunch.plugin.ConfigManager.SoundCue;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.EntityType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * 已编译的配置快照 (不可变)
+ * 每次加载都会解析出一个新的快照并整体替换，热点路径在一次操作开始时取一次快照，
+ * 之后读取的所有参数都来自同一份配置，不会读到重载到一半的值
+ */
+public final class ConfigSnapshot {
+    // 按世界区分的参数 (允许的生物、物理、蓄力、落地保护)：默认表 + 已合并的各世界覆盖表
+    private final WorldSettings defaults;
+    private final Map<String, WorldSettings> worlds;
+
+    // 投掷档案表 (按 EntityType 序号索引，每个类型都有档案)
+    private final LaunchProfile[] profiles;
+
+    // 轨迹预览
+    private final boolean previewEnabled;
+    private final Particle previewParticle;
+    private final int previewIntervalTicks;
+    private final int previewMaxTicks;
+    private final int previewPlayerParticles;
+    private final int previewRegionParticles;
+    // 轨迹表 [世界表序号][EntityType 序号]，未启用预览时为 null
+    private final TrajectoryTable[][] trajectories;
+
+    // 开关
+    private final boolean consumeNametagCreative;
+    private final boolean enableActionBar;
+
+    // 视觉
+    private final String barChar;
+    private final int barLength;
+    private final String colorCharging;
+    private final String colorFull;
+    private final String colorDecreasing;
+
+    private final String messagePrefix;
+    private final int permissionCacheSeconds;
+    private final boolean autoReload;
+
+    // 抱起
+    private final long pickupDeadlineNanos;
+
+    // 区域投掷预算
+    private final boolean launchLimitEnabled;
+    private final int launchRegionShift;
+    private final int regionLaunchesPerTick;
+    private final int chunkLaunchesPerTick;
+    private final int regionMaxInFlight;
+    private final int chunkMaxInFlight;
+    private final int launchQueueTicks;
+    private final long flightTimeoutMillis;
+
+    // 飞行碰撞效果
+    private final double impactMinSpeed;
+    private final double impactBlockBounce;
+    private final double impactBlockDamage;
+    private final boolean entityImpactEnabled;
+    private final boolean impactPlayersEnabled;
+    private final double impactEntityDamage;
+    private final double impactEntityKnockback;
+    private final double impactRadius;
+    private final boolean catchEnabled;
+    private final double catchRadius;
+
+    // 限流 (按 ActionLimiter.Action 序号索引)
+    private final boolean rateLimitEnabled;
+    private final long[] rateIntervalNanos;
+    private final long[] rateBurstNanos;
+    private final long sneakDebounceNanos;
+
+    // 清理
+    private final boolean sweepLegacyMarkers;
+    private final long sweepBudgetNanos;
+
+    // 音效表 (按 SoundCue 序号索引)
+    private final SoundConfig[] sounds;
+
+    // 动作栏帧表 [ChargeState 序号][百分比 0-100]，相同格数共享同一个 Component
+    private final Component[][] barFrames;
+
+    private ConfigSnapshot(ConfigurationSection config, Logger logger) {
+        // 按世界区分的参数
+        defaults = WorldSettings.compileDefaults(config, logger);
+        worlds = compileWorlds(config, defaults, logger);
+        profiles = LaunchProfile.compile(config, logger);
+
+        // 轨迹预览
+        previewEnabled = config.getBoolean("preview.enabled", false);
+        previewParticle = compileParticle(config.getString("preview.particle", "END_ROD"), logger);
+        previewIntervalTicks = Math.max(1, config.getInt("preview.interval-ticks", 2));
+        previewMaxTicks = Math.max(2, Math.min(200, config.getInt("preview.max-ticks", 40)));
+        previewPlayerParticles = Math.max(1, config.getInt("preview.player-particles", 24));
+        previewRegionParticles = Math.max(0, config.getInt("preview.region-particles-per-tick", 256));
+        trajectories = previewEnabled ? compileTrajectories() : null;
+
+        // 开关
+        consumeNametagCreative = config.getBoolean("protection.consume-nametag-creative", false);
+
+        // 视觉
+        enableActionBar = config.getBoolean("visuals.enable-action-bar", true);
+        barChar = config.getString("visuals.bar-char", "|");
+        barLength = Math.max(0, config.getInt("visuals.bar-length", 40));
+        colorCharging = config.getString("visuals.color-charging", "&a");
+        colorFull = config.getString("visuals.color-full", "&6");
+        colorDecreasing = config.getString("visuals.color-decreasing", "&c");
+        barFrames = ConfigManager.compileBarFrames(barLength, barChar, colorCharging, colorFull, colorDecreasing);
+
+        messagePrefix = config.getString("message-prefix", "&6[MobLaunch] ");
+        permissionCacheSeconds = Math.max(0, config.getInt("permission-cache-seconds", 5));
+        autoReload = config.getBoolean("auto-reload", false);
+
+        // 抱起
+        pickupDeadlineNanos = Math.max(50, config.getLong("pickup.deadline-millis", 2000)) * 1_000_000L;
+
+        // 区域投掷预算
+        launchLimitEnabled = config.getBoolean("launch-limits.enabled", false);
+        launchRegionShift = Math.max(0, Math.min(8, config.getInt("launch-limits.region-shift", 4)));
+        regionLaunchesPerTick = Math.max(1, config.getInt("launch-limits.region-launches-per-tick", 4));
+        chunkLaunchesPerTick = Math.max(1, config.getInt("launch-limits.chunk-launches-per-tick", 2));
+        regionMaxInFlight = Math.max(1, config.getInt("launch-limits.region-max-in-flight", 32));
+        chunkMaxInFlight = Math.max(1, config.getInt("launch-limits.chunk-max-in-flight", 8));
+        launchQueueTicks = Math.max(0, config.getInt("launch-limits.queue-ticks", 10));
+        flightTimeoutMillis = (long) (Math.max(1, config.getDouble("launch-limits.flight-timeout-seconds", 8))
+                * 1000);
+
+        // 飞行碰撞效果
+        impactMinSpeed = Math.max(0, config.getDouble("flight.impact.min-speed", 0.6));
+        impactBlockBounce = Math.max(0, config.getDouble("flight.impact.block.bounce", 0.3));
+        impactBlockDamage = Math.max(0, config.getDouble("flight.impact.block.damage", 0.0));
+        entityImpactEnabled = config.getBoolean("flight.impact.entity.enabled", false);
+        impactPlayersEnabled = config.getBoolean("flight.impact.entity.hit-players", false);
+        impactEntityDamage = Math.max(0, config.getDouble("flight.impact.entity.damage", 2.0));
+        impactEntityKnockback = Math.max(0, config.getDouble("flight.impact.entity.knockback", 0.5));
+        impactRadius = Math.max(0.1, config.getDouble("flight.impact.entity.radius", 1.0));
+        catchEnabled = config.getBoolean("flight.catch.enabled", false);
+        catchRadius = Math.max(0.1, config.getDouble("flight.catch.radius", 1.5));
+
+        // 限流
+        rateLimitEnabled = config.getBoolean("rate-limits.enabled", false);
+        sneakDebounceNanos = Math.max(0, config.getLong("rate-limits.sneak-debounce-millis", 150)) * 1_000_000L;
+        ActionLimiter.Action[] actions = ActionLimiter.Action.values();
+        rateIntervalNanos = new long[actions.length];
+        rateBurstNanos = new long[actions.length];
+        for (ActionLimiter.Action action : actions) {
+            String base = "rate-limits." + action.getPath();
+            double perSecond = config.getDouble(base + ".per-second", 4.0);
+            int burst = Math.max(1, config.getInt(base + ".burst", 4));
+            if (perSecond <= 0) {
+                logger.warning("无效的限流速率: " + perSecond + " (路径: " + base + ".per-second)");
+                perSecond = 4.0;
+            }
+            rateIntervalNanos[action.ordinal()] = (long) (1_000_000_000L / perSecond);
+            rateBurstNanos[action.ordinal()] = rateIntervalNanos[action.ordinal()] * (burst - 1);
+        }
+
+        // 清理
+        sweepLegacyMarkers = config.getBoolean("cleanup.sweep-legacy-markers", true);
+        sweepBudgetNanos = Math.max(1, config.getLong("cleanup.sweep-budget-micros", 500)) * 1000L;
+
+        // 音效
+        sounds = ConfigManager.compileSounds(config, logger);
+    }
+
+    /**
+     * 解析并校验配置，生成新的快照
+     * 只读取传入的配置，不会修改或写回配置文件；超出范围的数值会被限制到有效范围
+     *
+     * @param config 已加载的配置 (通常以 jar 包内的 config.yml 作为默认值)
+     * @param logger 用于输出无效配置项的警告
+     */
+    public static ConfigSnapshot compile(ConfigurationSection config, Logger logger) {
+        return new ConfigSnapshot(config, logger);
+    }
+
+    /**
+     * 将 worlds 下每个世界的覆盖项与默认表合并，运行时按世界名一次取出完整的表
+     */
+    private static Map<String, WorldSettings> compileWorlds(ConfigurationSection config, WorldSettings defaults,
+            Logger logger) {
+        ConfigurationSection section = config.getConfigurationSection("worlds");
+        if (section == null)
+            return Collections.emptyMap();
+        Map<String, WorldSettings> result = new HashMap<>();
+        for (String name : section.getKeys(false)) {
+            ConfigurationSection override = section.getConfigurationSection(name);
+            if (override == null) {
+                logger.warning("无效的世界配置: worlds." + name);
+                continue;
+            }
+            result.put(name, WorldSettings.compileOverride(name, result.size() + 1, override, defaults, logger));
+        }
+        return result;
+    }
+
+    private static Particle compileParticle(String name, Logger logger) {
+        try {
+            Particle particle = Particle.valueOf(name.toUpperCase());
+            if (particle.getDataType() == Void.class)
+                return particle;
+            logger.warning("预览粒子需要额外数据，无法使用: " + name + " (路径: preview.particle)");
+        } catch (IllegalArgumentException e) {
+            logger.warning("无效的粒子名称: " + name + " (路径: preview.particle)");
+        }
+        return Particle.END_ROD;
+    }
+
+    /**
+     * 为每个世界表和每种投掷档案计算轨迹表
+     * 同一世界内共用档案的生物类型共用一张表，出手参数与默认表相同的世界直接共用默认表的整行
+     */
+    private TrajectoryTable[][] compileTrajectories() {
+        TrajectoryTable[][] result = new TrajectoryTable[worlds.size() + 1][];
+        result[0] = compileTrajectories(defaults);
+        for (WorldSettings world : worlds.values()) {
+            result[world.getIndex()] = world.hasSameLaunch(defaults) ? result[0] : compileTrajectories(world);
+        }
+        return result;
+    }
+
+    private TrajectoryTable[] compileTrajectories(WorldSettings world) {
+        TrajectoryTable[] byType = new TrajectoryTable[profiles.length];
+        Map<LaunchProfile, TrajectoryTable> byProfile = new IdentityHashMap<>();
+        for (int i = 0; i < profiles.length; i++) {
+            TrajectoryTable table = byProfile.get(profiles[i]);
+            if (table == null) {
+                table = TrajectoryTable.compile(world, profiles[i], previewMaxTicks);
+                byProfile.put(profiles[i], table);
+            }
+            byType[i] = table;
+        }
+        return byType;
+    }
+
+    /**
+     * 获取世界参数与生物类型对应的轨迹表，未启用预览时返回 null
+     */
+    TrajectoryTable trajectory(WorldSettings world, EntityType type) {
+        return trajectories != null ? trajectories[world.getIndex()][type.ordinal()] : null;
+    }
+
+    /**
+     * 获取世界生效的参数表，没有覆盖项的世界使用默认表
+     * 蓄力与投掷通过 PlayerSession 缓存查找结果，只在重载配置或切换世界后调用
+     */
+    public WorldSettings world(World world) {
+        if (worlds.isEmpty() || world == null)
+            return defaults;
+        WorldSettings settings = worlds.get(world.getName());
+        return settings != null ? settings : defaults;
+    }
+
+    /**
+     * 获取生物类型的投掷档案
+     */
+    public LaunchProfile profile(EntityType type) {
+        return profiles[type.ordinal()];
+    }
+
+    /**
+     * 全局默认参数表
+     */
+    public WorldSettings getDefaults() {
+        return defaults;
+    }
+
+    public SoundConfig getSound(SoundCue cue) {
+        return sounds[cue.ordinal()];
+    }
+
+    /**
+     * 获取预构建的动作栏帧，pct 会被限制在 0-100
+     */
+    public Component getBarFrame(ChargeState state, int pct) {
+        if (pct < 0)
+            pct = 0;
+        else if (pct > 100)
+            pct = 100;
+        return barFrames[state.ordinal()][pct];
+    }
+
+    // Getters
+    public boolean isPreviewEnabled() {
+        return previewEnabled;
+    }
+
+    public Particle getPreviewParticle() {
+        return previewParticle;
+    }
+
+    public int getPreviewIntervalTicks() {
+        return previewIntervalTicks;
+    }
+
+    /**
+     * 每位玩家每次绘制预览最多使用的粒子数
+     */
+    public int getPreviewPlayerParticles() {
+        return previewPlayerParticles;
+    }
+
+    /**
+     * 每个区域每 tick 全部玩家的预览粒子总数上限
+     */
+    public int getPreviewRegionParticles() {
+        return previewRegionParticles;
+    }
+
+    public boolean isConsumeNametagCreative() {
+        return consumeNametagCreative;
+    }
+
+    public boolean isEnableActionBar() {
+        return enableActionBar;
+    }
+
+    public String getBarChar() {
+        return barChar;
+    }
+
+    public int getBarLength() {
+        return barLength;
+    }
+
+    public String getColorCharging() {
+        return colorCharging;
+    }
+
+    public String getColorFull() {
+        return colorFull;
+    }
+
+    public String getColorDecreasing() {
+        return colorDecreasing;
+    }
+
+    public String getMessagePrefix() {
+        return messagePrefix;
+    }
+
+    public int getPermissionCacheSeconds() {
+        return permissionCacheSeconds;
+    }
+
+    /**
+     * 是否监视 config.yml 的修改并自动重载
+     */
+    public boolean isAutoReload() {
+        return autoReload;
+    }
+
+    /**
+     * 抱起请求从提交到完成骑乘的期限 (纳秒)
+     */
+    public long getPickupDeadlineNanos() {
+        return pickupDeadlineNanos;
+    }
+
+    public boolean isLaunchLimitEnabled() {
+        return launchLimitEnabled;
+    }
+
+    /**
+     * 投掷预算网格的大小 (2^shift 个区块见方)
+     */
+    public int getLaunchRegionShift() {
+        return launchRegionShift;
+    }
+
+    public int getRegionLaunchesPerTick() {
+        return regionLaunchesPerTick;
+    }
+
+    public int getChunkLaunchesPerTick() {
+        return chunkLaunchesPerTick;
+    }
+
+    public int getRegionMaxInFlight() {
+        return regionMaxInFlight;
+    }
+
+    public int getChunkMaxInFlight() {
+        return chunkMaxInFlight;
+    }
+
+    public int getLaunchQueueTicks() {
+        return launchQueueTicks;
+    }
+
+    /**
+     * 投掷后超过此时间仍未检测到落地时视为已落地 (毫秒)
+     */
+    public long getFlightTimeoutMillis() {
+        return flightTimeoutMillis;
+    }
+
+    /**
+     * 触发碰撞效果的最低速度 (格/tick)
+     */
+    public double getImpactMinSpeed() {
+        return impactMinSpeed;
+    }
+
+    public double getImpactBlockBounce() {
+        return impactBlockBounce;
+    }
+
+    /**
+     * 撞墙时被投掷生物每 1 格/tick 速度受到的伤害
+     */
+    public double getImpactBlockDamage() {
+        return impactBlockDamage;
+    }
+
+    public boolean isEntityImpactEnabled() {
+        return entityImpactEnabled;
+    }
+
+    /**
+     * 被撞实体每 1 格/tick 速度受到的伤害
+     */
+    /**
+     * 被投掷的生物能否撞伤玩家 (另需投掷者拥有 moblaunch.impact.players 且世界开启 PvP)
+     */
+    public boolean isImpactPlayersEnabled() {
+        return impactPlayersEnabled;
+    }
+
+    public double getImpactEntityDamage() {
+        return impactEntityDamage;
+    }
+
+    public double getImpactEntityKnockback() {
+        return impactEntityKnockback;
+    }
+
+    /**
+     * 判定为撞到其他实体的距离 (格)
+     */
+    public double getImpactRadius() {
+        return impactRadius;
+    }
+
+    public boolean isCatchEnabled() {
+        return catchEnabled;
+    }
+
+    /**
+     * 玩家接住飞来生物的距离 (格)
+     */
+    public double getCatchRadius() {
+        return catchRadius;
+    }
+
+    public boolean isRateLimitEnabled() {
+        return rateLimitEnabled;
+    }
+
+    /**
+     * 动作的令牌生成间隔 (纳秒)
+     */
+    public long getRateIntervalNanos(ActionLimiter.Action action) {
+        return rateIntervalNanos[action.ordinal()];
+    }
+
+    /**
+     * 动作允许的突发量，换算为纳秒
+     */
+    public long getRateBurstNanos(ActionLimiter.Action action) {
+        return rateBurstNanos[action.ordinal()];
+    }
+
+    public long getSneakDebounceNanos() {
+        return sneakDebounceNanos;
+    }
+
+    public boolean isSweepLegacyMarkers() {
+        return sweepLegacyMarkers;
+    }
+
+    /**
+     * 每个区域每 tick 用于清理残留标记的时间上限 (纳秒)
+     */
+    public long getSweepBudgetNanos() {
+        return sweepBudgetNanos;
+    }
+}
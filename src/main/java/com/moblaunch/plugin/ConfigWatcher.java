@@ -0,0 +1,108 @@
+package com.moblaunch.plugin;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * config.yml 文件监视器
+ * 在独立的守护线程上等待文件系统事件，文件修改后等待一段安静期再重载，
+ * 编辑器保存时连续触发的多个事件只会引起一次重载；重载直接在监视线程上解析，不占用游戏线程
+ */
+final class ConfigWatcher {
+    // 最后一次修改事件之后等待的时间，期间再有事件则重新计时
+    private static final long QUIET_MILLIS = 500;
+
+    private final MobLaunch plugin;
+    private final Path file;
+    private volatile WatchService service;
+    private Thread thread;
+
+    ConfigWatcher(MobLaunch plugin, Path file) {
+        this.plugin = plugin;
+        this.file = file.toAbsolutePath();
+    }
+
+    /**
+     * 开始监视，失败时记录警告并返回 false
+     */
+    boolean start() {
+        try {
+            WatchService created = FileSystems.getDefault().newWatchService();
+            file.getParent().register(created, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            service = created;
+        } catch (IOException | UnsupportedOperationException e) {
+            plugin.getLogger().log(Level.WARNING, "无法监视 config.yml，自动重载已停用", e);
+            return false;
+        }
+        thread = new Thread(this::run, "MobLaunch-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    void stop() {
+        WatchService current = service;
+        service = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+            }
+        }
+        // 关闭后 take/poll 会抛出 ClosedWatchServiceException，监视线程随之退出
+        if (thread != null && thread != Thread.currentThread())
+            thread.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchService current = service;
+                if (current == null)
+                    return;
+                if (!drain(current.take()))
+                    continue;
+
+                // 安静期内持续有事件时继续等待
+                WatchKey more;
+                while ((more = current.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null)
+                    drain(more);
+
+                if (service != current)
+                    return;
+                try {
+                    plugin.getConfigManager().reload(false);
+                    plugin.getLogger().info("检测到 config.yml 修改，配置已重新加载");
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.WARNING, "config.yml 重新加载失败，继续使用之前的配置: "
+                            + e.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // 已停止
+        }
+    }
+
+    /**
+     * 取出并重置事件，返回其中是否有涉及 config.yml 的事件
+     */
+    private boolean drain(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.getFileName().equals(event.context()))
+                relevant = true;
+        }
+        key.reset();
+        return relevant;
+    }
+}
@@ -0,0 +1,590 @@
+package com.moblaunch.plugin;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.damage.DamageSource;
+import org.bukkit.damage.DamageType;
+import org.bukkit.entity.Damageable;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.Vector;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 飞行追踪器
+ * 登记每个被投掷出去的生物，按区域把空中的生物放在同一批次里，每 tick 一次遍历推进整批 (结构数组布局)，
+ * 不为每个生物单独创建任务；检测撞墙与撞到其他实体并施加配置的效果，落地、失效或超时后移出，
+ * 落地时 (着地或落入水/岩浆) 若有监听器则触发 MobLandEvent
+ * 接住与空中碰撞使用每批次一个的空间哈希网格 (空中生物 + 附近玩家，每 tick 重建)，不逐个调用 getNearbyEntities
+ * Paper/Spigot 上每个世界一个批次，由主线程定时任务推进；
+ * Folia 上每个投掷预算网格 (不超过一个区域 section) 一个批次，由网格所在区域的区域调度器推进，
+ * 生物飞出该区域时交给新区域的批次
+ */
+public class FlightTracker {
+    private static final int FLAG_HIT_ENTITY = 1;
+    private static final int FLAG_CATCH_TRIED = 2;
+    // 已提交抱起，等待流水线完成：骑乘成功后移出，失败时恢复正常的飞行追踪
+    private static final int FLAG_CATCH_PENDING = 4;
+    // 投掷时已确认可以撞伤玩家 (配置与投掷者权限)
+    private static final int FLAG_HIT_PLAYERS = 8;
+
+    // 投掷后前几 tick 不做落地判断 (生物刚离开玩家时可能仍在地面上)
+    private static final int MIN_AIRTIME_TICKS = 3;
+    // 速度分量在一个 tick 内降到原来的此比例以下时视为撞墙
+    private static final double WALL_STOP_RATIO = 0.2;
+
+    private final MobLaunch plugin;
+    private final boolean folia;
+    // 批次网格不超过 Folia 的 section 大小，保证一个批次只会被一个区域线程访问
+    private final int sectionShift;
+    private final Map<UUID, Map<Long, Batch>> batches = new ConcurrentHashMap<>();
+
+    public FlightTracker(MobLaunch plugin) {
+        this.plugin = plugin;
+        this.folia = ChargeDriver.isFolia();
+        this.sectionShift = folia ? ChargeDriver.regionSectionShift() : 0;
+    }
+
+    /**
+     * 落地或移出的原因
+     */
+    public enum Outcome {
+        LANDED,
+        CAUGHT,
+        REMOVED,
+        TIMED_OUT
+    }
+
+    /**
+     * 迁移到其他批次时携带的单个生物的状态
+     */
+    private static final class Snapshot {
+        Entity entity;
+        UUID thrower;
+        World world;
+        double launchX, launchY, launchZ;
+        double x, y, z;
+        double vx, vy, vz;
+        double drag;
+        int ticks;
+        int flags;
+    }
+
+    /**
+     * 在生物所在线程上登记刚投掷出的生物
+     *
+     * @param drag       投掷档案的空气阻力，每 tick 额外损失的速度比例
+     * @param hitPlayers 是否允许撞伤玩家，在投掷者线程上按配置和权限判断
+     */
+    public void track(Entity entity, UUID thrower, Vector velocity, double drag, boolean hitPlayers) {
+        Location loc = entity.getLocation();
+        Snapshot s = new Snapshot();
+        s.entity = entity;
+        s.thrower = thrower;
+        s.world = loc.getWorld();
+        s.launchX = s.x = loc.getX();
+        s.launchY = s.y = loc.getY();
+        s.launchZ = s.z = loc.getZ();
+        s.vx = velocity.getX();
+        s.vy = velocity.getY();
+        s.vz = velocity.getZ();
+        s.drag = drag;
+        s.flags = hitPlayers ? FLAG_HIT_PLAYERS : 0;
+        adopt(s, loc);
+    }
+
+    private void adopt(Snapshot s, Location loc) {
+        batchFor(loc).add(s);
+    }
+
+    private Batch batchFor(Location loc) {
+        // Paper 上每个世界一个批次，不同世界的生物不会出现在同一个接触网格里
+        long key = 0L;
+        if (folia) {
+            int shift = Math.min(plugin.getConfigManager().get().getLaunchRegionShift(), sectionShift);
+            int cx = (loc.getBlockX() >> 4) >> shift;
+            int cz = (loc.getBlockZ() >> 4) >> shift;
+            key = ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+        }
+        UUID worldId = loc.getWorld().getUID();
+        Map<Long, Batch> cells = batches.computeIfAbsent(worldId, k -> new ConcurrentHashMap<>());
+        Batch batch = cells.computeIfAbsent(key, k -> new Batch(worldId, key));
+        batch.ensureRunning(loc);
+        return batch;
+    }
+
+    /**
+     * 当前在空中的生物数量
+     */
+    public int size() {
+        int n = 0;
+        for (Map<Long, Batch> cells : batches.values()) {
+            for (Batch batch : cells.values())
+                n += batch.size;
+        }
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        for (Map<Long, Batch> cells : batches.values()) {
+            for (Batch batch : cells.values())
+                batch.stop();
+        }
+        batches.clear();
+    }
+
+    /**
+     * 一个区域内全部空中生物的结构数组
+     * 只会被所属区域的线程 (Paper 上为主线程) 访问
+     */
+    private final class Batch {
+        final UUID worldId;
+        final long key;
+        final Location scratch = new Location(null, 0, 0, 0);
+
+        Entity[] entities = new Entity[8];
+        UUID[] throwers = new UUID[8];
+        World[] worlds = new World[8];
+        double[] launchX = new double[8];
+        double[] launchY = new double[8];
+        double[] launchZ = new double[8];
+        double[] x = new double[8];
+        double[] y = new double[8];
+        double[] z = new double[8];
+        double[] vx = new double[8];
+        double[] vy = new double[8];
+        double[] vz = new double[8];
+        double[] drag = new double[8];
+        int[] ticks = new int[8];
+        int[] flags = new int[8];
+        int size;
+
+        // 接触检测：每 tick 重建的网格与本区域内的附近玩家
+        final SpatialGrid grid = new SpatialGrid(2.0);
+        Player[] players = new Player[8];
+        double[] px = new double[8];
+        double[] py = new double[8];
+        double[] pz = new double[8];
+        int playerCount;
+        final Set<Player> collected = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        // 在登记线程上创建，由清理或停用插件的线程取消
+        volatile ScheduledTask regionTask;
+        volatile BukkitTask timer;
+
+        Batch(UUID worldId, long key) {
+            this.worldId = worldId;
+            this.key = key;
+        }
+
+        void ensureRunning(Location anchor) {
+            if (regionTask != null || timer != null)
+                return;
+            synchronized (this) {
+                if (regionTask != null || timer != null)
+                    return;
+                start(anchor);
+            }
+        }
+
+        private void start(Location anchor) {
+            if (folia) {
+                regionTask = Bukkit.getRegionScheduler().runAtFixedRate(plugin, anchor.getWorld(),
+                        anchor.getBlockX() >> 4, anchor.getBlockZ() >> 4, (t) -> tick(), 1L, 1L);
+            } else {
+                timer = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+            }
+        }
+
+        synchronized void stop() {
+            if (regionTask != null) {
+                regionTask.cancel();
+                regionTask = null;
+            }
+            if (timer != null) {
+                timer.cancel();
+                timer = null;
+            }
+        }
+
+        void add(Snapshot s) {
+            if (size == entities.length)
+                grow(size * 2);
+            int i = size++;
+            entities[i] = s.entity;
+            throwers[i] = s.thrower;
+            worlds[i] = s.world;
+            launchX[i] = s.launchX;
+            launchY[i] = s.launchY;
+            launchZ[i] = s.launchZ;
+            x[i] = s.x;
+            y[i] = s.y;
+            z[i] = s.z;
+            vx[i] = s.vx;
+            vy[i] = s.vy;
+            vz[i] = s.vz;
+            drag[i] = s.drag;
+            ticks[i] = s.ticks;
+            flags[i] = s.flags;
+        }
+
+        Snapshot snapshot(int i) {
+            Snapshot s = new Snapshot();
+            s.entity = entities[i];
+            s.thrower = throwers[i];
+            s.world = worlds[i];
+            s.launchX = launchX[i];
+            s.launchY = launchY[i];
+            s.launchZ = launchZ[i];
+            s.x = x[i];
+            s.y = y[i];
+            s.z = z[i];
+            s.vx = vx[i];
+            s.vy = vy[i];
+            s.vz = vz[i];
+            s.drag = drag[i];
+            s.ticks = ticks[i];
+            s.flags = flags[i];
+            return s;
+        }
+
+        private void grow(int capacity) {
+            entities = Arrays.copyOf(entities, capacity);
+            throwers = Arrays.copyOf(throwers, capacity);
+            worlds = Arrays.copyOf(worlds, capacity);
+            launchX = Arrays.copyOf(launchX, capacity);
+            launchY = Arrays.copyOf(launchY, capacity);
+            launchZ = Arrays.copyOf(launchZ, capacity);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            z = Arrays.copyOf(z, capacity);
+            vx = Arrays.copyOf(vx, capacity);
+            vy = Arrays.copyOf(vy, capacity);
+            vz = Arrays.copyOf(vz, capacity);
+            drag = Arrays.copyOf(drag, capacity);
+            ticks = Arrays.copyOf(ticks, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+
+        /**
+         * 用末尾元素填补位置 i
+         */
+        void removeAt(int i) {
+            int last = --size;
+            entities[i] = entities[last];
+            throwers[i] = throwers[last];
+            worlds[i] = worlds[last];
+            launchX[i] = launchX[last];
+            launchY[i] = launchY[last];
+            launchZ[i] = launchZ[last];
+            x[i] = x[last];
+            y[i] = y[last];
+            z[i] = z[last];
+            vx[i] = vx[last];
+            vy[i] = vy[last];
+            vz[i] = vz[last];
+            drag[i] = drag[last];
+            ticks[i] = ticks[last];
+            flags[i] = flags[last];
+            entities[last] = null;
+            throwers[last] = null;
+            worlds[last] = null;
+        }
+
+        void tick() {
+            if (size == 0) {
+                retire();
+                return;
+            }
+            long start = System.nanoTime();
+            ConfigSnapshot cfg = plugin.getConfigManager().get();
+            int maxTicks = (int) (cfg.getFlightTimeoutMillis() / 50L);
+
+            for (int i = 0; i < size;) {
+                Entity entity = entities[i];
+                if (!entity.isValid()) {
+                    finish(i, Outcome.REMOVED);
+                    continue;
+                }
+                if (folia && !Bukkit.isOwnedByCurrentRegion(entity)) {
+                    migrate(i);
+                    continue;
+                }
+
+                if ((flags[i] & FLAG_CATCH_PENDING) != 0) {
+                    if (entity.isInsideVehicle()) {
+                        finish(i, Outcome.CAUGHT);
+                        continue;
+                    }
+                    if (plugin.getMobManager().getPickupPipeline().isEntityPending(entity.getUniqueId())) {
+                        i++;
+                        continue;
+                    }
+                    // 抱起超时或被取消：继续按飞行中处理，落地或超时时照常归还预算
+                    flags[i] &= ~FLAG_CATCH_PENDING;
+                }
+
+                Location loc = entity.getLocation(scratch);
+                if (loc.getWorld() != worlds[i]) {
+                    finish(i, Outcome.REMOVED);
+                    continue;
+                }
+                double nx = loc.getX(), ny = loc.getY(), nz = loc.getZ();
+                double dx = nx - x[i], dy = ny - y[i], dz = nz - z[i];
+                int age = ++ticks[i];
+
+                if (age > MIN_AIRTIME_TICKS) {
+                    boolean inLiquid = entity.isInWater() || entity.isInLava();
+                    if (inLiquid || entity.isOnGround()) {
+                        x[i] = nx;
+                        y[i] = ny;
+                        z[i] = nz;
+                        if (MobLandEvent.hasListeners())
+                            callLandEvent(i, entity, inLiquid);
+                        finish(i, Outcome.LANDED);
+                        continue;
+                    }
+                }
+                if (age >= maxTicks) {
+                    finish(i, Outcome.TIMED_OUT);
+                    continue;
+                }
+
+                checkBlockImpact(i, entity, dx, dz, cfg);
+                if (drag[i] > 0)
+                    entity.setVelocity(entity.getVelocity().multiply(1 - drag[i]));
+
+                x[i] = nx;
+                y[i] = ny;
+                z[i] = nz;
+                vx[i] = dx;
+                vy[i] = dy;
+                vz[i] = dz;
+                i++;
+            }
+            if (size > 0 && (cfg.isCatchEnabled() || cfg.isEntityImpactEnabled()))
+                resolveContacts(cfg);
+            plugin.getMetrics().recordFlightTick(System.nanoTime() - start);
+        }
+
+        /**
+         * 水平速度分量在一个 tick 内骤降视为撞墙，按配置反弹并对被投掷的生物造成伤害
+         */
+        private void checkBlockImpact(int i, Entity entity, double dx, double dz, ConfigSnapshot cfg) {
+            double min = cfg.getImpactMinSpeed();
+            boolean hitX = Math.abs(vx[i]) >= min && Math.abs(dx) < Math.abs(vx[i]) * WALL_STOP_RATIO;
+            boolean hitZ = Math.abs(vz[i]) >= min && Math.abs(dz) < Math.abs(vz[i]) * WALL_STOP_RATIO;
+            if (!hitX && !hitZ)
+                return;
+
+            double speed = Math.sqrt(vx[i] * vx[i] + vz[i] * vz[i]);
+            double bounce = cfg.getImpactBlockBounce();
+            if (bounce > 0) {
+                Vector v = entity.getVelocity();
+                if (hitX)
+                    v.setX(-vx[i] * bounce);
+                if (hitZ)
+                    v.setZ(-vz[i] * bounce);
+                entity.setVelocity(v);
+            }
+            double damage = cfg.getImpactBlockDamage() * speed;
+            if (damage > 0 && entity instanceof Damageable)
+                ((Damageable) entity).damage(damage);
+            plugin.getMetrics().recordBlockImpact();
+        }
+
+        /**
+         * 把空中生物和附近玩家放入网格，逐个生物只查询相邻格子：
+         * 玩家可以接住飞向自己的生物，生物撞到玩家或其他空中生物时施加碰撞效果
+         */
+        private void resolveContacts(ConfigSnapshot cfg) {
+            boolean catching = cfg.isCatchEnabled();
+            boolean impacts = cfg.isEntityImpactEnabled();
+            double catchSq = cfg.getCatchRadius() * cfg.getCatchRadius();
+            double impactSq = cfg.getImpactRadius() * cfg.getImpactRadius();
+            double radius = Math.max(cfg.getCatchRadius(), cfg.getImpactRadius());
+
+            collectPlayers(radius);
+            grid.clear(size + playerCount);
+            for (int i = 0; i < size; i++)
+                grid.insert(i, x[i], y[i], z[i]);
+            for (int j = 0; j < playerCount; j++)
+                grid.insert(size + j, px[j], py[j], pz[j]);
+
+            for (int i = 0; i < size; i++) {
+                if ((flags[i] & FLAG_CATCH_PENDING) != 0)
+                    continue;
+                grid.query(x[i], y[i], z[i], radius);
+                for (int k = 0; k < grid.resultSize(); k++) {
+                    int item = grid.resultAt(k);
+                    if (item == i)
+                        continue;
+                    Entity other;
+                    double ox, oy, oz;
+                    boolean isPlayer = item >= size;
+                    if (isPlayer) {
+                        other = players[item - size];
+                        ox = px[item - size];
+                        oy = py[item - size];
+                        oz = pz[item - size];
+                        if (other.getUniqueId().equals(throwers[i]))
+                            continue;
+                    } else {
+                        if ((flags[item] & FLAG_CATCH_PENDING) != 0)
+                            continue;
+                        other = entities[item];
+                        ox = x[item];
+                        oy = y[item];
+                        oz = z[item];
+                    }
+                    double ddx = ox - x[i], ddy = oy - y[i], ddz = oz - z[i];
+                    double distSq = ddx * ddx + ddy * ddy + ddz * ddz;
+
+                    if (isPlayer && catching && distSq <= catchSq && (flags[i] & FLAG_CATCH_TRIED) == 0
+                            && plugin.getMobManager().canCatch((Player) other, entities[i])) {
+                        // 每次投掷只尝试接住一次，抱起失败的提示不会每 tick 重复
+                        flags[i] |= FLAG_CATCH_TRIED;
+                        // 提交成功只表示抱起已进入流水线，骑乘完成后才在下一次推进时移出
+                        if (plugin.getMobManager().pickupMob((Player) other, entities[i])) {
+                            flags[i] |= FLAG_CATCH_PENDING;
+                            break;
+                        }
+                    }
+                    if (impacts && distSq <= impactSq && (flags[i] & FLAG_HIT_ENTITY) == 0
+                            && (!isPlayer || canHitPlayer(i)))
+                        applyImpact(i, other, cfg);
+                }
+            }
+
+            Arrays.fill(players, 0, playerCount, null);
+        }
+
+        /**
+         * 收集本区域内、位于任一空中生物 radius 范围内的玩家
+         * 每个生物只做一次小范围查询，生物相距很远时不会扫描它们之间的整片区域；同一玩家只收集一次
+         */
+        private void collectPlayers(double radius) {
+            playerCount = 0;
+            for (int i = 0; i < size; i++) {
+                if ((flags[i] & FLAG_CATCH_PENDING) != 0)
+                    continue;
+                scratch.setWorld(worlds[i]);
+                scratch.set(x[i], y[i], z[i]);
+                for (Player player : worlds[i].getNearbyPlayers(scratch, radius)) {
+                    if (!collected.add(player))
+                        continue;
+                    if (folia && !Bukkit.isOwnedByCurrentRegion(player))
+                        continue;
+                    if (playerCount == players.length) {
+                        int capacity = playerCount * 2;
+                        players = Arrays.copyOf(players, capacity);
+                        px = Arrays.copyOf(px, capacity);
+                        py = Arrays.copyOf(py, capacity);
+                        pz = Arrays.copyOf(pz, capacity);
+                    }
+                    Location loc = player.getLocation(scratch);
+                    players[playerCount] = player;
+                    px[playerCount] = loc.getX();
+                    py[playerCount] = loc.getY();
+                    pz[playerCount] = loc.getZ();
+                    playerCount++;
+                }
+            }
+            collected.clear();
+        }
+
+        /**
+         * 撞玩家需要投掷时已允许，且所在世界开启 PvP
+         */
+        private boolean canHitPlayer(int i) {
+            return (flags[i] & FLAG_HIT_PLAYERS) != 0 && worlds[i].getPVP();
+        }
+
+        /**
+         * 撞到其他实体：对方受到伤害并被击退，每次投掷只撞一次
+         * 伤害来源的直接实体是被投掷的生物，造成者是投掷者，领地与 PvP 插件按投掷者判断
+         */
+        private void applyImpact(int i, Entity other, ConfigSnapshot cfg) {
+            if (!(other instanceof Damageable))
+                return;
+            double speed = Math.sqrt(vx[i] * vx[i] + vy[i] * vy[i] + vz[i] * vz[i]);
+            if (speed < cfg.getImpactMinSpeed())
+                return;
+            double damage = cfg.getImpactEntityDamage() * speed;
+            if (damage > 0) {
+                DamageSource.Builder source = DamageSource.builder(DamageType.THROWN).withDirectEntity(entities[i]);
+                Player thrower = Bukkit.getPlayer(throwers[i]);
+                if (thrower != null)
+                    source.withCausingEntity(thrower);
+                ((Damageable) other).damage(damage, source.build());
+            }
+            double knockback = cfg.getImpactEntityKnockback();
+            double horizontal = Math.sqrt(vx[i] * vx[i] + vz[i] * vz[i]);
+            if (knockback > 0 && horizontal > 1.0E-4) {
+                double k = knockback / horizontal;
+                other.setVelocity(other.getVelocity().add(new Vector(vx[i] * k, 0, vz[i] * k)));
+            }
+            flags[i] |= FLAG_HIT_ENTITY;
+            plugin.getMetrics().recordEntityImpact();
+        }
+
+        /**
+         * 生物已进入其他区域：移出本批次，交给其所在线程重新登记
+         */
+        private void migrate(int i) {
+            Snapshot s = snapshot(i);
+            removeAt(i);
+            Runnable readopt = () -> {
+                if (s.entity.isValid())
+                    adopt(s, s.entity.getLocation());
+                else
+                    plugin.getMobManager().getLaunchBudget().release(s.entity.getEntityId());
+            };
+            if (s.entity.getScheduler().run(plugin, (t) -> readopt.run(),
+                    () -> plugin.getMobManager().getLaunchBudget().release(s.entity.getEntityId())) == null)
+                plugin.getMobManager().getLaunchBudget().release(s.entity.getEntityId());
+        }
+
+        private void callLandEvent(int i, Entity entity, boolean inLiquid) {
+            World world = worlds[i];
+            MobLandEvent event = new MobLandEvent(throwers[i], entity,
+                    new Location(world, launchX[i], launchY[i], launchZ[i]),
+                    new Location(world, x[i], y[i], z[i]), ticks[i], inLiquid);
+            Bukkit.getPluginManager().callEvent(event);
+        }
+
+        private void finish(int i, Outcome outcome) {
+            Entity entity = entities[i];
+            removeAt(i);
+            plugin.getMobManager().getLaunchBudget().release(entity.getEntityId());
+            if (outcome == Outcome.LANDED)
+                plugin.getMetrics().recordLanding();
+            else if (outcome == Outcome.CAUGHT)
+                plugin.getMetrics().recordCatch();
+        }
+
+        /**
+         * 批次已空：停止任务并从表中移除
+         */
+        private void retire() {
+            stop();
+            Map<Long, Batch> cells = batches.get(worldId);
+            if (cells != null)
+                cells.remove(key, this);
+        }
+    }
+}
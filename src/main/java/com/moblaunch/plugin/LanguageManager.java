@@ -1,13 +1,14 @@
 package com.moblaunch.plugin;
 
-import org.bukkit.ChatColor;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 语言管理器 (单文件版 - 颜色修复)
@@ -17,6 +18,11 @@ public class LanguageManager {
     private YamlConfiguration languageConfig;
     private final String LANG_FILE_NAME = "lang.yml";
 
+    // 预编译的消息模板 (加载时整体替换)
+    private volatile Map<String, MessageTemplate> templates = new HashMap<>();
+    // 语言文件中不存在的键，首次使用时编译
+    private final Map<String, MessageTemplate> missingTemplates = new ConcurrentHashMap<>();
+
     public LanguageManager(MobLaunch plugin) {
         this.plugin = plugin;
         loadLanguage();
@@ -37,16 +43,45 @@ public class LanguageManager {
         languageConfig = YamlConfiguration.loadConfiguration(languageFile);
 
         // 如果文件加载失败，尝试加载 jar 包内的默认文件作为后备
-        if (languageConfig.getKeys(false).isEmpty()) {
-            InputStream defConfigStream = plugin.getResource(LANG_FILE_NAME);
-            if (defConfigStream != null) {
-                languageConfig = YamlConfiguration
-                        .loadConfiguration(new InputStreamReader(defConfigStream, StandardCharsets.UTF_8));
+        InputStream defConfigStream = plugin.getResource(LANG_FILE_NAME);
+        if (defConfigStream != null) {
+            YamlConfiguration defaults = YamlConfiguration
+                    .loadConfiguration(new InputStreamReader(defConfigStream, StandardCharsets.UTF_8));
+            if (languageConfig.getKeys(false).isEmpty()) {
+                languageConfig = defaults;
+            } else {
+                // 旧版本的 lang.yml 缺少新增的键时使用 jar 包内的默认值
+                languageConfig.setDefaults(defaults);
+                languageConfig.options().copyDefaults(true);
             }
         }
 
         // 替换版本和作者占位符
         replacePlaceholders();
+
+        // 预编译全部消息
+        compileTemplates();
+    }
+
+    /**
+     * 将所有消息编译为模板，前缀与颜色代码在此一次性处理
+     */
+    private void compileTemplates() {
+        String prefix = currentPrefix();
+        Map<String, MessageTemplate> compiled = new HashMap<>();
+        for (String key : languageConfig.getKeys(true)) {
+            if (languageConfig.isString(key)) {
+                compiled.put(key, MessageTemplate.compile(languageConfig.getString(key), prefix));
+            }
+        }
+        templates = compiled;
+        missingTemplates.clear();
+    }
+
+    private String currentPrefix() {
+        // 构造时配置管理器尚未初始化，插件启用完成后会再次加载
+        ConfigManager configManager = plugin.getConfigManager();
+        return configManager != null ? configManager.get().getMessagePrefix() : "";
     }
 
     /**
@@ -82,25 +117,11 @@ public class LanguageManager {
             return key;
         }
 
-        String message = languageConfig.getString(key, key);
-
-        // 修复：MessageFormat 默认会吃掉单引号，需要转义
-        if (message != null) {
-            message = message.replace("'", "''");
+        MessageTemplate template = templates.get(key);
+        if (template == null) {
+            // 与旧版行为一致：缺失的键直接显示键名
+            template = missingTemplates.computeIfAbsent(key, k -> MessageTemplate.compile(k, currentPrefix()));
         }
-
-        // 获取消息前缀 (这里先不转颜色，最后统一转)
-        String prefix = plugin.getConfigManager().getMessagePrefix();
-
-        // 组合最终字符串
-        String result;
-        if (params.length > 0) {
-            result = prefix + MessageFormat.format(message, params);
-        } else {
-            result = prefix + message;
-        }
-
-        // 修复：最后对【整个字符串】进行颜色代码转换 (& -> §)
-        return ChatColor.translateAlternateColorCodes('&', result);
+        return template.format(params);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,288 @@
+package com.moblaunch.plugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 投掷预算
+ * 按区域 (2^region-shift 个区块见方的网格，与 Folia 的区域划分单位对齐) 和区块限制
+ * 每 tick 的投掷次数与同时在空中的生物数量；超出预算的投掷排队等待几 tick，仍无法执行时拒绝
+ * 每个网格只会属于一个 Folia 区域，网格内的计数由该区域线程访问，锁没有竞争
+ */
+public class LaunchBudget {
+    private static final long TICK_NANOS = 50_000_000L;
+    // 长时间没有投掷的空闲网格在清理时移除
+    private static final long IDLE_CELL_NANOS = 60_000_000_000L;
+
+    /**
+     * 申请结果
+     */
+    public enum Admission {
+        ADMITTED,
+        THROTTLED,
+        FULL
+    }
+
+    private final MobLaunch plugin;
+    private final Map<UUID, Map<Long, Cell>> worlds = new ConcurrentHashMap<>();
+    private final Map<Integer, Flight> flights = new ConcurrentHashMap<>();
+
+    public LaunchBudget(MobLaunch plugin) {
+        this.plugin = plugin;
+
+        try {
+            Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, (t) -> sweep(), 20L, 20L);
+        } catch (Throwable e) {
+            Bukkit.getScheduler().runTaskTimer(plugin, this::sweep, 20L, 20L);
+        }
+    }
+
+    /**
+     * 一个区域网格的计数
+     */
+    public static final class Cell {
+        private final UUID worldId;
+        private final int x;
+        private final int z;
+
+        private long window;
+        private int launches;
+        private int inFlight;
+        private int queued;
+        private long lastUsed;
+        private final Map<Long, ChunkCounter> chunks = new HashMap<>();
+
+        // 累计统计
+        private long admitted;
+        private long throttled;
+        private long rejected;
+
+        Cell(UUID worldId, int x, int z) {
+            this.worldId = worldId;
+            this.x = x;
+            this.z = z;
+        }
+
+        public UUID getWorldId() {
+            return worldId;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getZ() {
+            return z;
+        }
+
+        public synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        public synchronized int getQueued() {
+            return queued;
+        }
+
+        public synchronized long getAdmitted() {
+            return admitted;
+        }
+
+        public synchronized long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * 受限比例：排队过或被拒绝的投掷占全部投掷的比例
+         */
+        public synchronized double getThrottleRate() {
+            long total = admitted + rejected;
+            return total == 0 ? 0 : (double) throttled / total;
+        }
+    }
+
+    private static final class ChunkCounter {
+        long window;
+        int launches;
+        int inFlight;
+    }
+
+    private static final class Flight {
+        final Cell cell;
+        final long chunkKey;
+        final long deadline;
+
+        Flight(Cell cell, long chunkKey, long deadline) {
+            this.cell = cell;
+            this.chunkKey = chunkKey;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 申请在 loc 处投掷一次，成功时占用本 tick 的投掷次数与一个在空中的名额
+     *
+     * @param entityId 被投掷的实体 ID，落地或超时后通过 release 归还名额
+     * @param retry    是否为排队中的重试 (不重复计入受限次数)
+     */
+    public Admission tryAdmit(Location loc, int entityId, boolean retry) {
+        ConfigSnapshot cfg = plugin.getConfigManager().get();
+        int chunkX = loc.getBlockX() >> 4;
+        int chunkZ = loc.getBlockZ() >> 4;
+        Cell cell = cell(loc.getWorld().getUID(), chunkX >> cfg.getLaunchRegionShift(),
+                chunkZ >> cfg.getLaunchRegionShift());
+        long chunkKey = chunkKey(chunkX, chunkZ);
+        long now = System.nanoTime();
+        long window = now / TICK_NANOS;
+
+        synchronized (cell) {
+            cell.lastUsed = now;
+            if (cell.window != window) {
+                cell.window = window;
+                cell.launches = 0;
+            }
+            ChunkCounter chunk = cell.chunks.get(chunkKey);
+            if (chunk == null) {
+                chunk = new ChunkCounter();
+                cell.chunks.put(chunkKey, chunk);
+            }
+            if (chunk.window != window) {
+                chunk.window = window;
+                chunk.launches = 0;
+            }
+
+            Admission result;
+            if (cell.inFlight >= cfg.getRegionMaxInFlight() || chunk.inFlight >= cfg.getChunkMaxInFlight())
+                result = Admission.FULL;
+            else if (cell.launches >= cfg.getRegionLaunchesPerTick()
+                    || chunk.launches >= cfg.getChunkLaunchesPerTick())
+                result = Admission.THROTTLED;
+            else
+                result = Admission.ADMITTED;
+
+            if (result != Admission.ADMITTED) {
+                if (!retry)
+                    cell.throttled++;
+                if (chunk.inFlight == 0 && chunk.launches == 0)
+                    cell.chunks.remove(chunkKey);
+                return result;
+            }
+
+            cell.launches++;
+            cell.inFlight++;
+            cell.admitted++;
+            chunk.launches++;
+            chunk.inFlight++;
+        }
+        Flight old = flights.put(entityId,
+                new Flight(cell, chunkKey, now + cfg.getFlightTimeoutMillis() * 1_000_000L));
+        if (old != null)
+            release(old);
+        return Admission.ADMITTED;
+    }
+
+    /**
+     * 记录排队等待的投掷数量变化
+     */
+    public void queued(Location loc, int delta) {
+        ConfigSnapshot cfg = plugin.getConfigManager().get();
+        Cell cell = cell(loc.getWorld().getUID(), (loc.getBlockX() >> 4) >> cfg.getLaunchRegionShift(),
+                (loc.getBlockZ() >> 4) >> cfg.getLaunchRegionShift());
+        synchronized (cell) {
+            cell.queued += delta;
+        }
+    }
+
+    /**
+     * 排队超时仍无法投掷
+     */
+    public void rejected(Location loc) {
+        ConfigSnapshot cfg = plugin.getConfigManager().get();
+        Cell cell = cell(loc.getWorld().getUID(), (loc.getBlockX() >> 4) >> cfg.getLaunchRegionShift(),
+                (loc.getBlockZ() >> 4) >> cfg.getLaunchRegionShift());
+        synchronized (cell) {
+            cell.rejected++;
+        }
+    }
+
+    /**
+     * 生物落地或被移除，归还在空中的名额
+     */
+    public void release(int entityId) {
+        if (flights.isEmpty())
+            return;
+        Flight flight = flights.remove(entityId);
+        if (flight != null)
+            release(flight);
+    }
+
+    private void release(Flight flight) {
+        Cell cell = flight.cell;
+        synchronized (cell) {
+            cell.inFlight--;
+            ChunkCounter chunk = cell.chunks.get(flight.chunkKey);
+            if (chunk != null && --chunk.inFlight <= 0)
+                cell.chunks.remove(flight.chunkKey);
+        }
+    }
+
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    /**
+     * 全部网格，按在空中的数量降序
+     */
+    public List<Cell> getCells() {
+        List<Cell> result = new ArrayList<>();
+        for (Map<Long, Cell> cells : worlds.values())
+            result.addAll(cells.values());
+        result.sort((a, b) -> Integer.compare(b.getInFlight() + b.getQueued(), a.getInFlight() + a.getQueued()));
+        return result;
+    }
+
+    public void clear() {
+        flights.clear();
+        worlds.clear();
+    }
+
+    private Cell cell(UUID worldId, int x, int z) {
+        Map<Long, Cell> cells = worlds.computeIfAbsent(worldId, k -> new ConcurrentHashMap<>());
+        long key = chunkKey(x, z);
+        Cell cell = cells.get(key);
+        if (cell == null)
+            cell = cells.computeIfAbsent(key, k -> new Cell(worldId, x, z));
+        return cell;
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 归还超时仍未落地的名额，移除长时间空闲的网格
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        if (!flights.isEmpty()) {
+            for (Map.Entry<Integer, Flight> entry : flights.entrySet()) {
+                Flight flight = entry.getValue();
+                if (now - flight.deadline > 0 && flights.remove(entry.getKey(), flight))
+                    release(flight);
+            }
+        }
+        for (Map<Long, Cell> cells : worlds.values()) {
+            cells.values().removeIf(cell -> {
+                synchronized (cell) {
+                    return cell.inFlight == 0 && cell.queued == 0 && now - cell.lastUsed > IDLE_CELL_NANOS;
+                }
+            });
+        }
+    }
+}
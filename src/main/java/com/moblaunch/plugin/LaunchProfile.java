@@ -0,0 +1,152 @@
+package com.moblaunch.plugin;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.entity.EntityType;
+
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * 按生物类型区分的投掷物理参数 (不可变)
+ * profiles.default 为默认档案，profiles.&lt;类型&gt; 未设置的项沿用默认档案；
+ * 加载时编译为按 EntityType 序号索引的数组，每个类型都有一个档案，投掷时直接按序号取出
+ */
+public final class LaunchProfile {
+    /**
+     * 落地伤害策略
+     */
+    public enum FallDamage {
+        /** 沿用世界的 protection.disable-fall-damage */
+        INHERIT,
+        /** 投掷后总是免除落地伤害 */
+        IMMUNE,
+        /** 投掷后总是照常受到落地伤害 */
+        NORMAL
+    }
+
+    private final String name;
+    private final double mass;
+    private final double inverseMass;
+    private final double drag;
+    private final double maxSpeed;
+    private final double verticalBias;
+    private final FallDamage fallDamage;
+
+    private LaunchProfile(String name, ConfigurationSection config, LaunchProfile base, Logger logger) {
+        this.name = name;
+        mass = Math.max(0.1, config.getDouble("mass", base != null ? base.mass : 1.0));
+        drag = Math.max(0, Math.min(0.5, config.getDouble("drag", base != null ? base.drag : 0.0)));
+        double limit = config.getDouble("max-speed", base != null ? base.getMaxSpeedSetting() : 0);
+        maxSpeed = limit > 0 ? limit : Double.MAX_VALUE;
+        verticalBias = config.getDouble("vertical-bias", base != null ? base.verticalBias : 0.0);
+        fallDamage = parseFallDamage(config.getString("fall-damage"),
+                base != null ? base.fallDamage : FallDamage.INHERIT, name, logger);
+        inverseMass = 1.0 / mass;
+    }
+
+    private static FallDamage parseFallDamage(String value, FallDamage fallback, String name, Logger logger) {
+        if (value == null)
+            return fallback;
+        try {
+            return FallDamage.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warning("无效的落地伤害策略: " + value + " (路径: profiles." + name + ".fall-damage)");
+            return fallback;
+        }
+    }
+
+    /**
+     * 编译 profiles 节点，返回按 EntityType 序号索引的档案表 (没有单独配置的类型共享默认档案)
+     */
+    static LaunchProfile[] compile(ConfigurationSection config, Logger logger) {
+        ConfigurationSection section = config.getConfigurationSection("profiles");
+        ConfigurationSection defaultSection = section != null ? section.getConfigurationSection("default") : null;
+        LaunchProfile defaults = new LaunchProfile("default",
+                defaultSection != null ? defaultSection : new MemoryConfiguration(), null, logger);
+
+        LaunchProfile[] table = new LaunchProfile[EntityType.values().length];
+        Arrays.fill(table, defaults);
+        if (section == null)
+            return table;
+        for (String key : section.getKeys(false)) {
+            if (key.equalsIgnoreCase("default"))
+                continue;
+            EntityType type;
+            try {
+                type = EntityType.valueOf(key.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.warning("无效的生物类型: " + key + " (路径: profiles." + key + ")");
+                continue;
+            }
+            ConfigurationSection override = section.getConfigurationSection(key);
+            if (override == null) {
+                logger.warning("无效的投掷档案: profiles." + key);
+                continue;
+            }
+            table[type.ordinal()] = new LaunchProfile(type.name(), override, defaults, logger);
+        }
+        return table;
+    }
+
+    private double getMaxSpeedSetting() {
+        return maxSpeed == Double.MAX_VALUE ? 0 : maxSpeed;
+    }
+
+    /**
+     * 档案名：生物类型名，或 default
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 质量系数，出手速度除以此值
+     */
+    public double getMass() {
+        return mass;
+    }
+
+    public double getInverseMass() {
+        return inverseMass;
+    }
+
+    /**
+     * 飞行中每 tick 额外损失的速度比例
+     */
+    public double getDrag() {
+        return drag;
+    }
+
+    /**
+     * 出手速度上限 (格/tick)，未限制时为 Double.MAX_VALUE
+     */
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    /**
+     * 在世界的 launch.vertical-bias 之外额外的垂直补偿
+     */
+    public double getVerticalBias() {
+        return verticalBias;
+    }
+
+    public FallDamage getFallDamage() {
+        return fallDamage;
+    }
+
+    /**
+     * 按策略决定投掷后是否免除落地伤害
+     */
+    public boolean isFallProtected(WorldSettings world) {
+        switch (fallDamage) {
+            case IMMUNE:
+                return true;
+            case NORMAL:
+                return false;
+            default:
+                return world.isDisableFallDamage();
+        }
+    }
+}
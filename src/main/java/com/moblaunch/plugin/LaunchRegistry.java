@@ -0,0 +1,257 @@
+package com.moblaunch.plugin;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 飞行中生物登记表
+ * 以实体 ID (int) 为键记录刚被投掷出去的生物，用于落地免伤判断，不再写入实体 PDC；
+ * 条目在落地宽限期结束后由时间轮过期，也会在实体移出世界时被移除
+ * 数据分段加锁 (开放寻址的 int -> long 表)，各区域线程并发读写互不阻塞
+ */
+public class LaunchRegistry {
+    private static final int STRIPES = 16;
+
+    // 时间轮：每格 250ms，共 64 格 (16 秒一圈)，超过一圈的条目会在到期前被重新放入轮中
+    private static final long RESOLUTION_MILLIS = 250L;
+    private static final int WHEEL_SLOTS = 64;
+
+    private final Stripe[] stripes;
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final Object wheelLock = new Object();
+    private final int[][] wheel = new int[WHEEL_SLOTS][];
+    private final int[] wheelSizes = new int[WHEEL_SLOTS];
+    private long wheelCursor = -1;
+
+    public LaunchRegistry() {
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++)
+            stripes[i] = new Stripe();
+        for (int i = 0; i < WHEEL_SLOTS; i++)
+            wheel[i] = new int[8];
+    }
+
+    /**
+     * 登记飞行中的实体
+     *
+     * @param entityId    实体 ID
+     * @param graceMillis 落地宽限期 (毫秒)
+     */
+    public void add(int entityId, long graceMillis) {
+        long deadline = System.currentTimeMillis() + graceMillis;
+        if (stripe(entityId).put(entityId, deadline))
+            size.incrementAndGet();
+        synchronized (wheelLock) {
+            schedule(entityId, deadline);
+        }
+    }
+
+    /**
+     * 移除实体，返回其是否曾处于飞行中
+     */
+    public boolean remove(int entityId) {
+        if (size.get() == 0)
+            return false;
+        if (stripe(entityId).remove(entityId)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    public void clear() {
+        synchronized (wheelLock) {
+            for (Stripe stripe : stripes)
+                stripe.clear();
+            Arrays.fill(wheelSizes, 0);
+            size.set(0);
+        }
+    }
+
+    /**
+     * 推进时间轮，过期宽限期已结束的条目
+     * 由全局定时任务周期调用
+     */
+    public void advance() {
+        long target = System.currentTimeMillis() / RESOLUTION_MILLIS;
+        synchronized (wheelLock) {
+            if (wheelCursor < 0) {
+                wheelCursor = target;
+                return;
+            }
+            long steps = Math.min(target - wheelCursor, WHEEL_SLOTS);
+            long now = target * RESOLUTION_MILLIS;
+            for (long i = 1; i <= steps; i++) {
+                expireSlot((int) ((wheelCursor + i) % WHEEL_SLOTS), now);
+            }
+            wheelCursor = target;
+        }
+    }
+
+    private void expireSlot(int slot, long now) {
+        int count = wheelSizes[slot];
+        if (count == 0)
+            return;
+        int[] ids = wheel[slot];
+        // 换入新数组，重新调度的条目不会落回正在遍历的数组
+        wheel[slot] = new int[ids.length];
+        wheelSizes[slot] = 0;
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
+            Stripe stripe = stripe(id);
+            long deadline = stripe.get(id);
+            if (deadline < 0)
+                continue;
+            if (deadline <= now) {
+                if (stripe.remove(id))
+                    size.decrementAndGet();
+            } else {
+                schedule(id, deadline);
+            }
+        }
+    }
+
+    private void schedule(int entityId, long deadline) {
+        int slot = (int) ((deadline / RESOLUTION_MILLIS + 1) % WHEEL_SLOTS);
+        int[] ids = wheel[slot];
+        int count = wheelSizes[slot];
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+            wheel[slot] = ids;
+        }
+        ids[count] = entityId;
+        wheelSizes[slot] = count + 1;
+    }
+
+    private Stripe stripe(int entityId) {
+        return stripes[mix(entityId) >>> 28];
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 开放寻址 (线性探测) 的 int -> long 表，删除时回移后续元素，不使用墓碑
+     */
+    private static final class Stripe {
+        private static final int EMPTY = Integer.MIN_VALUE;
+
+        private int[] keys;
+        private long[] values;
+        private int mask;
+        private int count;
+
+        Stripe() {
+            allocate(16);
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            values = new long[capacity];
+            mask = capacity - 1;
+            count = 0;
+        }
+
+        synchronized long get(int key) {
+            int i = mix(key) & mask;
+            while (true) {
+                int k = keys[i];
+                if (k == key)
+                    return values[i];
+                if (k == EMPTY)
+                    return -1L;
+                i = (i + 1) & mask;
+            }
+        }
+
+        /**
+         * 写入条目，返回是否为新条目
+         */
+        synchronized boolean put(int key, long value) {
+            if ((count + 1) * 2 > keys.length)
+                rehash(keys.length * 2);
+            int i = mix(key) & mask;
+            while (true) {
+                int k = keys[i];
+                if (k == key) {
+                    values[i] = value;
+                    return false;
+                }
+                if (k == EMPTY) {
+                    keys[i] = key;
+                    values[i] = value;
+                    count++;
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        synchronized boolean remove(int key) {
+            int i = mix(key) & mask;
+            while (true) {
+                int k = keys[i];
+                if (k == EMPTY)
+                    return false;
+                if (k == key) {
+                    deleteAt(i);
+                    count--;
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        synchronized void clear() {
+            allocate(16);
+        }
+
+        private void deleteAt(int hole) {
+            int j = hole;
+            while (true) {
+                j = (j + 1) & mask;
+                int k = keys[j];
+                if (k == EMPTY)
+                    break;
+                int home = mix(k) & mask;
+                // home 不在 (hole, j] 区间内时，该元素可以回移到空位
+                boolean between = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+                if (!between) {
+                    keys[hole] = k;
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = EMPTY;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldKeys = keys;
+            long[] oldValues = values;
+            allocate(capacity);
+            for (int i = 0; i < oldKeys.length; i++) {
+                int k = oldKeys[i];
+                if (k == EMPTY)
+                    continue;
+                int j = mix(k) & mask;
+                while (keys[j] != EMPTY)
+                    j = (j + 1) & mask;
+                keys[j] = k;
+                values[j] = oldValues[i];
+                count++;
+            }
+        }
+    }
+}
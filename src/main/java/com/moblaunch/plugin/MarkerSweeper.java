@@ -0,0 +1,185 @@
+package com.moblaunch.plugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 残留标记清理器
+ * 在区块实体加载时检查新加载的生物：清理旧版本遗留的 MobLaunchMounted / MobLaunchNoFall 标记，
+ * 放下抱起日志中记录的未正常放下的生物，并同步所有权索引；
+ * 每个区域线程每 tick 只使用有限的时间，超出部分按区块排队，之后在区块所属区域上继续处理，
+ * 启用时不会同步扫描整个世界
+ */
+public class MarkerSweeper implements Listener {
+    // 同时派发到各区域执行的批次上限
+    private static final int MAX_DISPATCHED = 8;
+
+    private final MobLaunch plugin;
+    private final NamespacedKey mountedKey;
+    private final NamespacedKey noFallKey;
+
+    private final Queue<Batch> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger dispatched = new AtomicInteger();
+    private final ThreadLocal<Budget> budgets = ThreadLocal.withInitial(Budget::new);
+
+    // 进度统计
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder cleaned = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+
+    public MarkerSweeper(MobLaunch plugin) {
+        this.plugin = plugin;
+        this.mountedKey = new NamespacedKey(plugin, "MobLaunchMounted");
+        this.noFallKey = plugin.getMobManager().getNoFallKey();
+
+        try {
+            Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, (t) -> dispatch(), 1L, 1L);
+        } catch (Throwable e) {
+            Bukkit.getScheduler().runTaskTimer(plugin, this::dispatch, 1L, 1L);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        List<Entity> entities = event.getEntities();
+        if (entities.isEmpty())
+            return;
+        process(new Batch(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ(), entities));
+    }
+
+    /**
+     * 在当前 (区块所属) 线程上处理批次，超出本 tick 预算时把剩余部分重新排队
+     */
+    private void process(Batch batch) {
+        Budget budget = budgets.get();
+        long limit = plugin.getConfigManager().get().getSweepBudgetNanos();
+        List<Entity> entities = batch.entities;
+        while (batch.index < entities.size()) {
+            if (!budget.tryStart(limit)) {
+                deferred.add(entities.size() - batch.index);
+                pending.add(batch);
+                return;
+            }
+            long start = System.nanoTime();
+            check(entities.get(batch.index++));
+            budget.spend(System.nanoTime() - start);
+        }
+    }
+
+    private void check(Entity entity) {
+        if (!entity.isValid())
+            return;
+        scanned.increment();
+
+        MobManager mobManager = plugin.getMobManager();
+        mobManager.releaseDangling(entity);
+        mobManager.syncOwner(entity);
+
+        if (!plugin.getConfigManager().get().isSweepLegacyMarkers())
+            return;
+        PersistentDataContainer pdc = entity.getPersistentDataContainer();
+        if (pdc.has(mountedKey, PersistentDataType.BYTE) && !mobManager.isMobMounted(entity)) {
+            // isMobMounted 会顺带移除无效标记
+            cleaned.increment();
+        }
+        if (pdc.has(noFallKey, PersistentDataType.BYTE)) {
+            pdc.remove(noFallKey);
+            cleaned.increment();
+        }
+    }
+
+    /**
+     * 每 tick 把排队的批次派发到区块所属的区域继续处理
+     */
+    private void dispatch() {
+        while (dispatched.get() < MAX_DISPATCHED) {
+            Batch batch = pending.poll();
+            if (batch == null)
+                return;
+            dispatched.incrementAndGet();
+            Runnable run = () -> {
+                try {
+                    process(batch);
+                } finally {
+                    dispatched.decrementAndGet();
+                }
+            };
+            try {
+                Bukkit.getRegionScheduler().execute(plugin, batch.world, batch.chunkX, batch.chunkZ, run);
+            } catch (Throwable e) {
+                Bukkit.getScheduler().runTask(plugin, run);
+            }
+        }
+    }
+
+    public long getScanned() {
+        return scanned.sum();
+    }
+
+    public long getCleaned() {
+        return cleaned.sum();
+    }
+
+    public long getDeferred() {
+        return deferred.sum();
+    }
+
+    /**
+     * 等待处理的区块批次数
+     */
+    public int getPendingBatches() {
+        return pending.size() + dispatched.get();
+    }
+
+    private static final class Batch {
+        final World world;
+        final int chunkX;
+        final int chunkZ;
+        final List<Entity> entities;
+        int index;
+
+        Batch(World world, int chunkX, int chunkZ, List<Entity> entities) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.entities = entities;
+        }
+    }
+
+    /**
+     * 每个线程独立的时间预算，以 50ms 为一个窗口
+     */
+    private static final class Budget {
+        private static final long WINDOW_NANOS = 50_000_000L;
+
+        long windowStart;
+        long spent;
+
+        boolean tryStart(long limit) {
+            long now = System.nanoTime();
+            if (now - windowStart >= WINDOW_NANOS) {
+                windowStart = now;
+                spent = 0;
+            }
+            return spent < limit;
+        }
+
+        void spend(long nanos) {
+            spent += nanos;
+        }
+    }
+}
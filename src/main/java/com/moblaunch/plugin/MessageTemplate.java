@@ -0,0 +1,85 @@
+package com.moblaunch.plugin;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的消息模板
+ * 前缀与颜色代码在编译时就已处理完毕，格式化时只需按 {0} {1} ... 占位符填入参数
+ */
+public final class MessageTemplate {
+    private final String constant;
+    private final String[] literals;
+    private final int[] slots;
+    private final int capacity;
+
+    private MessageTemplate(String constant, String[] literals, int[] slots) {
+        this.constant = constant;
+        this.literals = literals;
+        this.slots = slots;
+        int len = 16;
+        for (String literal : literals)
+            len += literal.length();
+        this.capacity = len;
+    }
+
+    /**
+     * 编译模板
+     *
+     * @param pattern 语言文件中的原始消息
+     * @param prefix  消息前缀 (未转换颜色)
+     */
+    public static MessageTemplate compile(String pattern, String prefix) {
+        String text = ChatColor.translateAlternateColorCodes('&', prefix + pattern);
+
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < text.length()) {
+            if (text.charAt(i) == '{') {
+                int end = i + 1;
+                while (end < text.length() && Character.isDigit(text.charAt(end)))
+                    end++;
+                // 超过 9 位的序号不可能对应参数，按普通文本保留，避免 parseInt 溢出
+                if (end > i + 1 && end - i - 1 <= 9 && end < text.length() && text.charAt(end) == '}') {
+                    literals.add(text.substring(start, i));
+                    slots.add(Integer.parseInt(text.substring(i + 1, end)));
+                    start = end + 1;
+                    i = start;
+                    continue;
+                }
+            }
+            i++;
+        }
+        literals.add(text.substring(start));
+
+        int[] slotArray = new int[slots.size()];
+        for (int j = 0; j < slotArray.length; j++)
+            slotArray[j] = slots.get(j);
+        return new MessageTemplate(text, literals.toArray(new String[0]), slotArray);
+    }
+
+    /**
+     * 填入参数，无参数时直接返回缓存的常量字符串
+     * 缺少对应参数的占位符保持原样
+     */
+    public String format(Object... params) {
+        if (params.length == 0 || slots.length == 0)
+            return constant;
+
+        StringBuilder sb = new StringBuilder(capacity);
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            int slot = slots[i];
+            if (slot < params.length)
+                sb.append(params[slot]);
+            else
+                sb.append('{').append(slot).append('}');
+        }
+        sb.append(literals[slots.length]);
+        return sb.toString();
+    }
+}
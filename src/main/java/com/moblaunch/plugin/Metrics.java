@@ -0,0 +1,242 @@
+package com.moblaunch.plugin;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 运行时统计
+ * 所有计数器均为 LongAdder，各区域线程并发累加时互不竞争，通过 /ml stats 查看
+ */
+public class Metrics {
+    private final LongAdder pickups = new LongAdder();
+    private final LongAdder putdowns = new LongAdder();
+    private final LongAdder launches = new LongAdder();
+
+    // 限流拒绝次数 (按 ActionLimiter.Action 序号索引)
+    private final LongAdder[] rejected = new LongAdder[ActionLimiter.Action.values().length];
+    private final LongAdder sneakDebounced = new LongAdder();
+
+    // 蓄力驱动耗时
+    private final LongAdder chargeTicks = new LongAdder();
+    private final LongAdder chargeTickNanos = new LongAdder();
+    private volatile long maxChargeTickNanos;
+
+    // 抱起流水线
+    private final LongAdder pickupCoalesced = new LongAdder();
+    private final LongAdder pickupTimedOut = new LongAdder();
+    private final LongAdder pickupCancelled = new LongAdder();
+    private final LongAdder pickupLatencyCount = new LongAdder();
+    private final LongAdder pickupLatencyNanos = new LongAdder();
+    private volatile long maxPickupLatencyNanos;
+
+    // 飞行追踪
+    private final LongAdder landings = new LongAdder();
+    private final LongAdder catches = new LongAdder();
+    private final LongAdder blockImpacts = new LongAdder();
+    private final LongAdder entityImpacts = new LongAdder();
+    private final LongAdder flightTicks = new LongAdder();
+    private final LongAdder flightTickNanos = new LongAdder();
+
+    private volatile long startedAt = System.nanoTime();
+
+    public Metrics() {
+        for (int i = 0; i < rejected.length; i++)
+            rejected[i] = new LongAdder();
+    }
+
+    public void recordPickup() {
+        pickups.increment();
+    }
+
+    public void recordPutdown() {
+        putdowns.increment();
+    }
+
+    public void recordLaunch() {
+        launches.increment();
+    }
+
+    public void recordRejected(ActionLimiter.Action action) {
+        rejected[action.ordinal()].increment();
+    }
+
+    public void recordSneakDebounced() {
+        sneakDebounced.increment();
+    }
+
+    public void recordPickupCoalesced() {
+        pickupCoalesced.increment();
+    }
+
+    public void recordPickupTimedOut() {
+        pickupTimedOut.increment();
+    }
+
+    public void recordPickupCancelled() {
+        pickupCancelled.increment();
+    }
+
+    /**
+     * 记录一次抱起从提交到完成骑乘的耗时
+     */
+    public void recordPickupLatency(long nanos) {
+        pickupLatencyCount.increment();
+        pickupLatencyNanos.add(nanos);
+        if (nanos > maxPickupLatencyNanos)
+            maxPickupLatencyNanos = nanos;
+    }
+
+    public void recordLanding() {
+        landings.increment();
+    }
+
+    public void recordCatch() {
+        catches.increment();
+    }
+
+    public void recordBlockImpact() {
+        blockImpacts.increment();
+    }
+
+    public void recordEntityImpact() {
+        entityImpacts.increment();
+    }
+
+    /**
+     * 记录一次飞行批次推进的耗时
+     */
+    public void recordFlightTick(long nanos) {
+        flightTicks.increment();
+        flightTickNanos.add(nanos);
+    }
+
+    /**
+     * 记录一次蓄力驱动执行的耗时
+     */
+    public void recordChargeTick(long nanos) {
+        chargeTicks.increment();
+        chargeTickNanos.add(nanos);
+        if (nanos > maxChargeTickNanos)
+            maxChargeTickNanos = nanos;
+    }
+
+    public long getPickups() {
+        return pickups.sum();
+    }
+
+    public long getPutdowns() {
+        return putdowns.sum();
+    }
+
+    public long getLaunches() {
+        return launches.sum();
+    }
+
+    public long getRejected(ActionLimiter.Action action) {
+        return rejected[action.ordinal()].sum();
+    }
+
+    public long getSneakDebounced() {
+        return sneakDebounced.sum();
+    }
+
+    public long getPickupCoalesced() {
+        return pickupCoalesced.sum();
+    }
+
+    public long getPickupTimedOut() {
+        return pickupTimedOut.sum();
+    }
+
+    public long getPickupCancelled() {
+        return pickupCancelled.sum();
+    }
+
+    /**
+     * 抱起平均耗时 (毫秒)
+     */
+    public double getAveragePickupLatencyMillis() {
+        long count = pickupLatencyCount.sum();
+        return count == 0 ? 0 : pickupLatencyNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxPickupLatencyMillis() {
+        return maxPickupLatencyNanos / 1_000_000.0;
+    }
+
+    public long getLandings() {
+        return landings.sum();
+    }
+
+    public long getCatches() {
+        return catches.sum();
+    }
+
+    public long getBlockImpacts() {
+        return blockImpacts.sum();
+    }
+
+    public long getEntityImpacts() {
+        return entityImpacts.sum();
+    }
+
+    public long getFlightTicks() {
+        return flightTicks.sum();
+    }
+
+    /**
+     * 飞行批次平均每次推进耗时 (微秒)
+     */
+    public double getAverageFlightTickMicros() {
+        long ticks = flightTicks.sum();
+        return ticks == 0 ? 0 : flightTickNanos.sum() / 1000.0 / ticks;
+    }
+
+    public long getChargeTicks() {
+        return chargeTicks.sum();
+    }
+
+    /**
+     * 蓄力驱动平均每次执行耗时 (微秒)
+     */
+    public double getAverageChargeTickMicros() {
+        long ticks = chargeTicks.sum();
+        return ticks == 0 ? 0 : chargeTickNanos.sum() / 1000.0 / ticks;
+    }
+
+    public double getMaxChargeTickMicros() {
+        return maxChargeTickNanos / 1000.0;
+    }
+
+    /**
+     * 插件启用以来平均每个服务器 tick (50ms) 花在蓄力驱动上的时间 (微秒)
+     */
+    public double getChargeMicrosPerServerTick() {
+        double serverTicks = (System.nanoTime() - startedAt) / 50_000_000.0;
+        return serverTicks < 1 ? 0 : chargeTickNanos.sum() / 1000.0 / serverTicks;
+    }
+
+    public void reset() {
+        pickups.reset();
+        putdowns.reset();
+        launches.reset();
+        for (LongAdder adder : rejected)
+            adder.reset();
+        sneakDebounced.reset();
+        landings.reset();
+        catches.reset();
+        blockImpacts.reset();
+        entityImpacts.reset();
+        flightTicks.reset();
+        flightTickNanos.reset();
+        pickupCoalesced.reset();
+        pickupTimedOut.reset();
+        pickupCancelled.reset();
+        pickupLatencyCount.reset();
+        pickupLatencyNanos.reset();
+        maxPickupLatencyNanos = 0;
+        chargeTicks.reset();
+        chargeTickNanos.reset();
+        maxChargeTickNanos = 0;
+        startedAt = System.nanoTime();
+    }
+}
@@ -0,0 +1,113 @@
+package com.moblaunch.plugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * 当被投掷的生物落地 (着地或落入水/岩浆) 时触发
+ * 由飞行追踪器在生物所在区域的线程上触发，没有监听器时不会构造
+ */
+public class MobLandEvent extends Event {
+    private static final HandlerList handlers = new HandlerList();
+    private final UUID throwerId;
+    private final Entity entity;
+    private final Location launchLocation;
+    private final Location landingLocation;
+    private final int airtimeTicks;
+    private final boolean inLiquid;
+
+    public MobLandEvent(UUID throwerId, Entity entity, Location launchLocation, Location landingLocation,
+            int airtimeTicks, boolean inLiquid) {
+        this.throwerId = throwerId;
+        this.entity = entity;
+        this.launchLocation = launchLocation;
+        this.landingLocation = landingLocation;
+        this.airtimeTicks = airtimeTicks;
+        this.inLiquid = inLiquid;
+    }
+
+    /**
+     * 是否有插件监听此事件
+     */
+    static boolean hasListeners() {
+        return handlers.getRegisteredListeners().length > 0;
+    }
+
+    public UUID getThrowerId() {
+        return throwerId;
+    }
+
+    /**
+     * 获取投掷者，已离线时返回 null
+     */
+    @Nullable
+    public Player getThrower() {
+        return Bukkit.getPlayer(throwerId);
+    }
+
+    public Entity getEntity() {
+        return entity;
+    }
+
+    /**
+     * 获取投掷出手的位置
+     */
+    public Location getLaunchLocation() {
+        return launchLocation.clone();
+    }
+
+    /**
+     * 获取落地位置
+     */
+    public Location getLandingLocation() {
+        return landingLocation.clone();
+    }
+
+    /**
+     * 获取在空中的时间 (tick)
+     */
+    public int getAirtimeTicks() {
+        return airtimeTicks;
+    }
+
+    /**
+     * 获取出手点到落地点的直线距离 (格)
+     */
+    public double getDistance() {
+        return launchLocation.distance(landingLocation);
+    }
+
+    /**
+     * 获取出手点到落地点的水平距离 (格)
+     */
+    public double getHorizontalDistance() {
+        double dx = landingLocation.getX() - launchLocation.getX();
+        double dz = landingLocation.getZ() - launchLocation.getZ();
+        return Math.sqrt(dx * dx + dz * dz);
+    }
+
+    /**
+     * 是否落入水或岩浆
+     */
+    public boolean isInLiquid() {
+        return inLiquid;
+    }
+
+    @NotNull
+    @Override
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+}
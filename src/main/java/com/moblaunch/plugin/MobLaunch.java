@@ -12,10 +12,14 @@ public class MobLaunch extends JavaPlugin {
     private MobManager mobManager;
     private ConfigManager configManager;
     private LanguageManager languageManager;
+    private Metrics metrics;
+    private MarkerSweeper markerSweeper;
+    private SessionListener sessionListener;
 
     @Override
     public void onEnable() {
         instance = this;
+        metrics = new Metrics();
         
         // 初始化语言管理器
         languageManager = new LanguageManager(this);
@@ -31,7 +35,12 @@ public class MobLaunch extends JavaPlugin {
         mobManager = new MobManager(this);
         
         // 注册事件监听器
+        // 会话监听器在首次抱起或投掷时才注册
         getServer().getPluginManager().registerEvents(new PlayerListener(this), this);
+        sessionListener = new SessionListener(this);
+        markerSweeper = new MarkerSweeper(this);
+        getServer().getPluginManager().registerEvents(markerSweeper, this);
+        getServer().getPluginManager().registerEvents(mobManager.getOwnerIndex(), this);
         
         // 注册命令
         MobLaunchCommand mobLaunchCommand = new MobLaunchCommand(this);
@@ -47,6 +56,9 @@ public class MobLaunch extends JavaPlugin {
         if (mobManager != null) {
             mobManager.removeAllMountedMobs();
         }
+        if (configManager != null) {
+            configManager.shutdown();
+        }
         getLogger().info("MobLaunch 插件已禁用!");
     }
     
@@ -74,6 +86,30 @@ public class MobLaunch extends JavaPlugin {
         return configManager;
     }
     
+    /**
+     * 获取运行时统计
+     * @return Metrics实例
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 获取会话监听器
+     * @return SessionListener实例
+     */
+    public SessionListener getSessionListener() {
+        return sessionListener;
+    }
+
+    /**
+     * 获取残留标记清理器
+     * @return MarkerSweeper实例
+     */
+    public MarkerSweeper getMarkerSweeper() {
+        return markerSweeper;
+    }
+
     /**
      * 获取语言管理器
      * @return LanguageManager实例
@@ -1,6 +1,9 @@
 package com.moblaunch.plugin;
 
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -9,11 +12,20 @@ import org.bukkit.command.TabCompleter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
 
 /**
  * 插件命令处理器
  */
 public class MobLaunchCommand implements CommandExecutor, TabCompleter {
+    // /ml owned 最多列出的生物数
+    private static final int OWNED_LIST_LIMIT = 10;
+    // /ml regions 最多列出的区域数
+    private static final int REGION_LIST_LIMIT = 10;
+
     private final MobLaunch plugin;
 
     public MobLaunchCommand(MobLaunch plugin) {
@@ -42,6 +54,18 @@ public class MobLaunchCommand implements CommandExecutor, TabCompleter {
             case "reload":
                 reloadConfig(sender);
                 break;
+            case "stats":
+                sendStats(sender);
+                break;
+            case "regions":
+                sendRegions(sender);
+                break;
+            case "owned":
+                sendOwned(sender, args);
+                break;
+            case "transfer":
+                transferOwnership(sender, args);
+                break;
             default:
                 sender.sendMessage(ChatColor.RED + plugin.getLanguageManager().getMessage("command-help-title"));
                 sendHelpMessage(sender);
@@ -66,8 +90,26 @@ public class MobLaunchCommand implements CommandExecutor, TabCompleter {
             if ("reload".startsWith(args[0].toLowerCase())) {
                 completions.add("reload");
             }
+            if ("stats".startsWith(args[0].toLowerCase())) {
+                completions.add("stats");
+            }
+            if ("regions".startsWith(args[0].toLowerCase())) {
+                completions.add("regions");
+            }
+            if ("owned".startsWith(args[0].toLowerCase())) {
+                completions.add("owned");
+            }
+            if ("transfer".startsWith(args[0].toLowerCase())) {
+                completions.add("transfer");
+            }
             return completions;
         }
+
+        String sub = args[0].toLowerCase();
+        if ((sub.equals("owned") && args.length == 2) || (sub.equals("transfer") && args.length <= 3)) {
+            // 返回 null 时由服务器补全在线玩家名
+            return null;
+        }
         
         return Collections.emptyList();
     }
@@ -80,6 +122,10 @@ public class MobLaunchCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatColor.GOLD + plugin.getLanguageManager().getMessage("command-help-title"));
         sender.sendMessage(ChatColor.YELLOW + plugin.getLanguageManager().getMessage("command-help-version"));
         sender.sendMessage(ChatColor.YELLOW + plugin.getLanguageManager().getMessage("command-help-reload"));
+        sender.sendMessage(ChatColor.YELLOW + plugin.getLanguageManager().getMessage("command-help-stats"));
+        sender.sendMessage(ChatColor.YELLOW + plugin.getLanguageManager().getMessage("command-help-regions"));
+        sender.sendMessage(ChatColor.YELLOW + plugin.getLanguageManager().getMessage("command-help-owned"));
+        sender.sendMessage(ChatColor.YELLOW + plugin.getLanguageManager().getMessage("command-help-transfer"));
     }
 
     /**
@@ -93,19 +139,135 @@ public class MobLaunchCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatColor.YELLOW + plugin.getLanguageManager().getMessage("command-version-description"));
     }
 
+    /**
+     * 发送运行时统计
+     * @param sender 命令发送者
+     */
+    private void sendStats(CommandSender sender) {
+        LanguageManager lang = plugin.getLanguageManager();
+        Metrics metrics = plugin.getMetrics();
+        MobManager mobManager = plugin.getMobManager();
+
+        sender.sendMessage(lang.getMessage("command-stats-title"));
+        sender.sendMessage(lang.getMessage("command-stats-sessions", mobManager.getSessions().size(),
+                mobManager.getChargeDriver().getActiveCount(), mobManager.countLeakedSessions()));
+        sender.sendMessage(lang.getMessage("command-stats-actions", metrics.getPickups(), metrics.getPutdowns(),
+                metrics.getLaunches()));
+        sender.sendMessage(lang.getMessage("command-stats-charge",
+                String.format("%.2f", metrics.getChargeMicrosPerServerTick()),
+                String.format("%.2f", metrics.getAverageChargeTickMicros()),
+                String.format("%.2f", metrics.getMaxChargeTickMicros())));
+        sender.sendMessage(lang.getMessage("command-stats-flight", mobManager.getFlightTracker().size(),
+                metrics.getLandings(), metrics.getCatches(), metrics.getBlockImpacts(), metrics.getEntityImpacts(),
+                String.format("%.2f", metrics.getAverageFlightTickMicros())));
+        sender.sendMessage(lang.getMessage("command-stats-pickup", mobManager.getPickupPipeline().size(),
+                metrics.getPickupCoalesced(), metrics.getPickupTimedOut(), metrics.getPickupCancelled(),
+                String.format("%.1f", metrics.getAveragePickupLatencyMillis()),
+                String.format("%.1f", metrics.getMaxPickupLatencyMillis())));
+        sender.sendMessage(lang.getMessage("command-stats-limits", metrics.getRejected(ActionLimiter.Action.PICKUP),
+                metrics.getRejected(ActionLimiter.Action.CHARGE), metrics.getRejected(ActionLimiter.Action.LAUNCH),
+                metrics.getSneakDebounced()));
+        MarkerSweeper sweeper = plugin.getMarkerSweeper();
+        sender.sendMessage(lang.getMessage("command-stats-sweeper", sweeper.getScanned(), sweeper.getCleaned(),
+                sweeper.getDeferred(), sweeper.getPendingBatches()));
+    }
+
+    /**
+     * 列出投掷预算各区域的在空中数量、排队长度与受限比例
+     * @param sender 命令发送者
+     */
+    private void sendRegions(CommandSender sender) {
+        LanguageManager lang = plugin.getLanguageManager();
+        LaunchBudget budget = plugin.getMobManager().getLaunchBudget();
+        List<LaunchBudget.Cell> cells = budget.getCells();
+        sender.sendMessage(lang.getMessage("command-regions-title", cells.size(), budget.getInFlight()));
+        int shown = Math.min(cells.size(), REGION_LIST_LIMIT);
+        for (int i = 0; i < shown; i++) {
+            LaunchBudget.Cell cell = cells.get(i);
+            World world = Bukkit.getWorld(cell.getWorldId());
+            sender.sendMessage(lang.getMessage("command-regions-entry",
+                    world != null ? world.getName() : cell.getWorldId(), cell.getX(), cell.getZ(),
+                    cell.getInFlight(), cell.getQueued(), cell.getAdmitted(), cell.getRejected(),
+                    String.format("%.1f", cell.getThrottleRate() * 100)));
+        }
+    }
+
+    /**
+     * 列出玩家拥有的生物 (只查询所有权索引，不加载区块)
+     * @param sender 命令发送者
+     * @param args 命令参数
+     */
+    private void sendOwned(CommandSender sender, String[] args) {
+        LanguageManager lang = plugin.getLanguageManager();
+        if (args.length < 2) {
+            sender.sendMessage(ChatColor.RED + lang.getMessage("command-usage-owned"));
+            return;
+        }
+        UUID owner = resolvePlayer(sender, args[1]);
+        if (owner == null)
+            return;
+
+        List<OwnerIndex.Entry> owned = plugin.getMobManager().getOwnerIndex().getOwned(owner);
+        sender.sendMessage(lang.getMessage("command-owned-title", args[1], owned.size()));
+        int shown = Math.min(owned.size(), OWNED_LIST_LIMIT);
+        for (int i = 0; i < shown; i++) {
+            OwnerIndex.Entry entry = owned.get(i);
+            World world = Bukkit.getWorld(entry.getWorldId());
+            sender.sendMessage(lang.getMessage("command-owned-entry", entry.getEntityId(),
+                    world != null ? world.getName() : entry.getWorldId(), entry.getChunkX(), entry.getChunkZ()));
+        }
+        if (owned.size() > shown)
+            sender.sendMessage(lang.getMessage("command-owned-more", owned.size() - shown));
+    }
+
+    /**
+     * 把一名玩家的全部生物转移给另一名玩家
+     * @param sender 命令发送者
+     * @param args 命令参数
+     */
+    private void transferOwnership(CommandSender sender, String[] args) {
+        LanguageManager lang = plugin.getLanguageManager();
+        if (args.length < 3) {
+            sender.sendMessage(ChatColor.RED + lang.getMessage("command-usage-transfer"));
+            return;
+        }
+        UUID from = resolvePlayer(sender, args[1]);
+        UUID to = from == null ? null : resolvePlayer(sender, args[2]);
+        if (to == null)
+            return;
+
+        int count = plugin.getMobManager().getOwnerIndex().transfer(from, to);
+        sender.sendMessage(ChatColor.GREEN + lang.getMessage("command-transfer-success", count, args[1], args[2]));
+    }
+
+    /**
+     * 按名称查找玩家，只使用服务器已缓存的资料，不会发起网络查询
+     */
+    private UUID resolvePlayer(CommandSender sender, String name) {
+        OfflinePlayer player = Bukkit.getOfflinePlayerIfCached(name);
+        if (player == null) {
+            sender.sendMessage(ChatColor.RED + plugin.getLanguageManager().getMessage("command-player-not-found", name));
+            return null;
+        }
+        return player.getUniqueId();
+    }
+
     /**
      * 重载配置文件
+     * 配置在异步线程上解析，完成后回复命令发送者；解析失败时继续使用之前的配置
      * @param sender 命令发送者
      */
     private void reloadConfig(CommandSender sender) {
-        try {
-            plugin.reloadConfig();
-            plugin.getConfigManager().loadConfig();
-            plugin.getLanguageManager().loadLanguage();
-            sender.sendMessage(ChatColor.GREEN + plugin.getLanguageManager().getMessage("command-reload-success"));
-        } catch (Exception e) {
-            sender.sendMessage(ChatColor.RED + plugin.getLanguageManager().getMessage("command-reload-failed", e.getMessage()));
-            e.printStackTrace();
-        }
+        plugin.getConfigManager().reloadAsync(true).whenComplete((snapshot, error) -> {
+            if (error == null) {
+                sender.sendMessage(ChatColor.GREEN + plugin.getLanguageManager().getMessage("command-reload-success"));
+                return;
+            }
+            Throwable cause = error;
+            if ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null)
+                cause = cause.getCause();
+            sender.sendMessage(ChatColor.RED + plugin.getLanguageManager().getMessage("command-reload-failed", cause.getMessage()));
+            plugin.getLogger().log(Level.WARNING, "重新加载配置失败", cause);
+        });
     }
 }
\ No newline at end of file
@@ -17,12 +17,22 @@ public class MobLaunchEvent extends Event implements Cancellable {
     private boolean cancelled = false;
     private final Player player;
     private final Entity entity;
+    private final LaunchProfile profile;
     private Vector velocity;
 
+    /**
+     * 使用当前配置中该生物类型的投掷档案
+     */
     public MobLaunchEvent(Player player, Entity entity, Vector velocity) {
+        this(player, entity, velocity,
+                MobLaunch.getInstance().getConfigManager().get().profile(entity.getType()));
+    }
+
+    public MobLaunchEvent(Player player, Entity entity, Vector velocity, LaunchProfile profile) {
         this.player = player;
         this.entity = entity;
         this.velocity = velocity;
+        this.profile = profile;
     }
 
     public Player getPlayer() {
@@ -33,6 +43,13 @@ public class MobLaunchEvent extends Event implements Cancellable {
         return entity;
     }
 
+    /**
+     * 获取计算速度时使用的投掷档案 (该生物类型的档案，未单独配置时为 default)
+     */
+    public LaunchProfile getProfile() {
+        return profile;
+    }
+
     /**
      * 获取即将应用的投掷速度向量
      */
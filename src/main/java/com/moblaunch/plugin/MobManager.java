@@ -1,18 +1,21 @@
 package com.moblaunch.plugin;
 
+import com.moblaunch.plugin.ConfigManager.SoundCue;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 生物管理器
@@ -20,36 +23,137 @@ import java.util.UUID;
  */
 public class MobManager {
     private final MobLaunch plugin;
-    private final Map<UUID, Entity> mountedMobs;
-    private final Map<UUID, ChargeTask> chargingPlayers;
+    private final SessionTable sessions;
+    private final ChargeDriver chargeDriver;
+    private final PermissionCache permissionCache;
+    private final LaunchRegistry launchRegistry;
+    private final MountJournal mountJournal;
+    private final PickupPipeline pickupPipeline;
+    private final LaunchBudget launchBudget;
+    private final FlightTracker flightTracker;
+    private final TrajectoryPreview trajectoryPreview;
+    private final OwnerIndex ownerIndex;
+    // 生物主人 (16 字节 UUID)，旧版本为 UUID 字符串，读取时转换
+    private final NamespacedKey ownerKey;
+    // 上次运行未正常放下的生物 (来自抱起日志回放)，在实体加载或被交互时清理
+    private final Set<UUID> danglingMounts;
+    // 旧版本写入实体 PDC 的抱起标记，仅用于清理残留
     private final NamespacedKey mobLaunchKey;
+    // 旧版本写入实体 PDC 的落地免伤标记，仅用于清理残留
     private final NamespacedKey noFallKey;
 
     public MobManager(MobLaunch plugin) {
         this.plugin = plugin;
-        this.mountedMobs = new HashMap<>();
-        this.chargingPlayers = new HashMap<>();
+        this.sessions = new SessionTable();
+        this.chargeDriver = new ChargeDriver(plugin);
+        this.permissionCache = new PermissionCache(plugin);
+        this.launchRegistry = new LaunchRegistry();
+        this.pickupPipeline = new PickupPipeline(plugin);
+        this.launchBudget = new LaunchBudget(plugin);
+        this.flightTracker = new FlightTracker(plugin);
+        this.trajectoryPreview = new TrajectoryPreview(plugin);
         this.mobLaunchKey = new NamespacedKey(plugin, "MobLaunchMounted");
         this.noFallKey = new NamespacedKey(plugin, "MobLaunchNoFall");
+        this.ownerKey = new NamespacedKey(plugin, "MobLaunchOwner");
+        this.ownerIndex = new OwnerIndex(plugin, new File(plugin.getDataFolder(), "owners.dat"));
+
+        this.mountJournal = new MountJournal(plugin, new File(plugin.getDataFolder(), "mounts.journal"));
+        this.danglingMounts = ConcurrentHashMap.newKeySet();
+        this.danglingMounts.addAll(mountJournal.open());
+        if (!danglingMounts.isEmpty()) {
+            plugin.getLogger().info("发现 " + danglingMounts.size() + " 个上次未正常放下的生物，将在其加载时清理");
+        }
+
+        // 飞行登记表的时间轮只访问插件内部数据，交给全局调度器推进
+        try {
+            Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, (t) -> launchRegistry.advance(), 5L, 5L);
+        } catch (Throwable e) {
+            Bukkit.getScheduler().runTaskTimer(plugin, launchRegistry::advance, 5L, 5L);
+        }
     }
 
     public NamespacedKey getNoFallKey() {
         return noFallKey;
     }
 
+    public SessionTable getSessions() {
+        return sessions;
+    }
+
+    public ChargeDriver getChargeDriver() {
+        return chargeDriver;
+    }
+
+    public PermissionCache getPermissionCache() {
+        return permissionCache;
+    }
+
+    public LaunchRegistry getLaunchRegistry() {
+        return launchRegistry;
+    }
+
+    public PickupPipeline getPickupPipeline() {
+        return pickupPipeline;
+    }
+
+    public LaunchBudget getLaunchBudget() {
+        return launchBudget;
+    }
+
+    public FlightTracker getFlightTracker() {
+        return flightTracker;
+    }
+
+    public TrajectoryPreview getTrajectoryPreview() {
+        return trajectoryPreview;
+    }
+
+    public OwnerIndex getOwnerIndex() {
+        return ownerIndex;
+    }
+
     // --- 播放音效辅助方法 ---
-    private void playSound(Player player, String configPath) {
-        playSound(player, configPath, -1);
+    void playSound(Player player, SoundCue cue) {
+        playSound(player, cue, -1);
     }
 
-    private void playSound(Player player, String configPath, float overridePitch) {
-        ConfigManager.SoundConfig soundConfig = plugin.getConfigManager().getSound(configPath);
+    void playSound(Player player, SoundCue cue, float overridePitch) {
+        ConfigManager.SoundConfig soundConfig = plugin.getConfigManager().get().getSound(cue);
         if (soundConfig.enabled && soundConfig.sound != null) {
             float finalPitch = (overridePitch != -1) ? overridePitch : soundConfig.pitch;
             player.playSound(player.getLocation(), soundConfig.sound, soundConfig.volume, finalPitch);
         }
     }
 
+    // --- 限流 ---
+    /**
+     * 消耗玩家对应动作的令牌，被拒绝时计数
+     */
+    private boolean tryAction(Player player, ActionLimiter.Action action) {
+        ConfigSnapshot cfg = plugin.getConfigManager().get();
+        if (!cfg.isRateLimitEnabled())
+            return true;
+        ActionLimiter limiter = sessions.limiter(player.getUniqueId());
+        if (limiter.tryAcquire(action, System.nanoTime(), cfg.getRateIntervalNanos(action),
+                cfg.getRateBurstNanos(action)))
+            return true;
+        plugin.getMetrics().recordRejected(action);
+        return false;
+    }
+
+    /**
+     * 潜行按下去抖，返回本次按下是否有效
+     */
+    public boolean acceptSneakPress(Player player) {
+        ConfigSnapshot cfg = plugin.getConfigManager().get();
+        if (!cfg.isRateLimitEnabled() || cfg.getSneakDebounceNanos() == 0)
+            return true;
+        if (sessions.limiter(player.getUniqueId()).acceptSneak(System.nanoTime(), cfg.getSneakDebounceNanos()))
+            return true;
+        plugin.getMetrics().recordSneakDebounced();
+        return false;
+    }
+
     // --- 抱起逻辑 (Pickup) ---
     public boolean pickupMob(Player player, Entity entity) {
         if (entity == null || !entity.isValid())
@@ -57,6 +161,19 @@ public class MobManager {
         if (entity.getUniqueId().equals(player.getUniqueId()))
             return false;
 
+        // 重复点击同一生物时合并到进行中的请求，不消耗限流令牌
+        PickupPipeline.Result inFlight = pickupPipeline.checkInFlight(player.getUniqueId(), entity.getUniqueId());
+        if (inFlight == PickupPipeline.Result.COALESCED)
+            return true;
+        if (inFlight == PickupPipeline.Result.BUSY) {
+            player.sendMessage(ChatColor.RED + plugin.getLanguageManager().getMessage("pickup-in-progress"));
+            return false;
+        }
+
+        // 限流在其他检查之前进行，连点宏不会触发后续的权限判断和传送
+        if (!tryAction(player, ActionLimiter.Action.PICKUP))
+            return false;
+
         if (player.isInsideVehicle()) {
             player.sendMessage(
                     ChatColor.RED + plugin.getLanguageManager().getMessage("pickup-failed-vehicle", "你必须离开载具"));
@@ -70,20 +187,14 @@ public class MobManager {
             return false;
         }
 
-        if (!player.hasPermission("moblaunch.use")) {
+        PermissionCache.Decision decision = permissionCache.checkPickup(player, entity.getType());
+        if (decision == PermissionCache.Decision.NO_PERMISSION) {
             player.sendMessage(ChatColor.RED + plugin.getLanguageManager().getMessage("no-permission-use"));
             return false;
         }
-
-        boolean hasWildcard = player.hasPermission("moblaunch.use.*");
-        boolean hasSpecific = player.hasPermission("moblaunch.use." + entity.getType().name().toLowerCase());
-
-        if (!hasWildcard && !hasSpecific) {
-            boolean isAdmin = player.hasPermission("moblaunch.admin");
-            if (!isAdmin && !plugin.getConfigManager().isMobAllowed(entity.getType())) {
-                player.sendMessage(ChatColor.RED + plugin.getLanguageManager().getMessage("mob-not-allowed"));
-                return false;
-            }
+        if (decision == PermissionCache.Decision.NOT_ALLOWED) {
+            player.sendMessage(ChatColor.RED + plugin.getLanguageManager().getMessage("mob-not-allowed"));
+            return false;
         }
 
         if (!checkMobOwnership(player, entity)) {
@@ -109,59 +220,71 @@ public class MobManager {
         Runnable mountLogic = () -> {
             if (!player.isValid() || !entity.isValid())
                 return;
+            // 传送期间状态可能已变化，骑乘前重新确认
+            if (entity.getWorld() != player.getWorld() || isPlayerHoldingMob(player) || isMobMounted(entity))
+                return;
 
             player.addPassenger(entity);
-            markMobAsMounted(entity);
-            mountedMobs.put(player.getUniqueId(), entity);
+            PlayerSession old = sessions.open(player, entity);
+            if (old != null)
+                endSession(old);
+            mountJournal.recordMount(entity.getUniqueId());
+            plugin.getSessionListener().ensureRegistered();
 
-            playSound(player, "pickup");
+            playSound(player, SoundCue.PICKUP);
+            plugin.getMetrics().recordPickup();
 
             player.sendMessage(
                     ChatColor.GREEN + plugin.getLanguageManager().getMessage("pickup-success", entity.getName()));
         };
 
+        PickupPipeline.Result result;
         try {
-            entity.teleportAsync(player.getLocation()).thenAccept(success -> {
-                if (success) {
-                    try {
-                        entity.getScheduler().run(plugin, (task) -> mountLogic.run(), null);
-                    } catch (Throwable e) {
-                        mountLogic.run();
-                    }
-                }
-            });
+            result = pickupPipeline.submit(player, entity, mountLogic);
         } catch (Throwable e) {
+            // 不支持异步传送的服务端 (submit 失败时已撤销登记，不会留下进行中的请求)
             entity.teleport(player.getLocation());
             mountLogic.run();
+            return true;
         }
-
+        if (result == PickupPipeline.Result.BUSY) {
+            player.sendMessage(ChatColor.RED + plugin.getLanguageManager().getMessage("pickup-in-progress"));
+            return false;
+        }
+        // 监听退出/死亡/传送以便取消进行中的抱起
+        plugin.getSessionListener().ensureRegistered();
         return true;
     }
 
+    /**
+     * 接住飞来的生物前的静默预检查 (每 tick 都可能调用，不发送提示)
+     * 通过后再由 pickupMob 做完整的权限与所有权检查
+     */
+    public boolean canCatch(Player player, Entity entity) {
+        if (player.isSneaking() || player.isInsideVehicle() || !PlayerListener.isHandsEmpty(player))
+            return false;
+        if (isPlayerHoldingMob(player) || pickupPipeline.isPending(player.getUniqueId()))
+            return false;
+        return permissionCache.checkPickup(player, entity.getType()) == PermissionCache.Decision.ALLOWED;
+    }
+
     // --- 放下逻辑 (Putdown) ---
     public boolean putdownMob(Player player) {
-        Entity entity = mountedMobs.get(player.getUniqueId());
-        if (entity == null || !entity.isValid()) {
-            mountedMobs.remove(player.getUniqueId());
+        PlayerSession session = sessions.remove(player.getUniqueId());
+        if (session == null)
+            return false;
+        endSession(session);
+
+        Entity entity = session.getEntity();
+        if (!entity.isValid())
             return false;
-        }
 
-        unmarkMobAsMounted(entity);
         if (player.isValid())
             player.removePassenger(entity);
-        mountedMobs.remove(player.getUniqueId());
-
-        ChargeTask chargeTask = chargingPlayers.get(player.getUniqueId());
-        if (chargeTask != null) {
-            try {
-                chargeTask.cancel();
-            } catch (Exception e) {
-            }
-            chargingPlayers.remove(player.getUniqueId());
-        }
 
+        plugin.getMetrics().recordPutdown();
         if (player.isValid()) {
-            playSound(player, "putdown");
+            playSound(player, SoundCue.PUTDOWN);
             player.sendMessage(
                     ChatColor.GREEN + plugin.getLanguageManager().getMessage("putdown-success", entity.getName()));
         }
@@ -172,89 +295,137 @@ public class MobManager {
     public void startCharging(Player player) {
         if (!isPlayerHoldingMob(player))
             return;
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session == null)
+            return;
+        if (!tryAction(player, ActionLimiter.Action.CHARGE))
+            return;
 
-        ChargeTask existing = chargingPlayers.get(player.getUniqueId());
-        if (existing != null) {
-            try {
-                existing.cancel();
-            } catch (Exception e) {
-            }
-            chargingPlayers.remove(player.getUniqueId());
-        }
-
-        ChargeTask chargeTask = new ChargeTask(player);
-        int tickRate = plugin.getConfigManager().getChargeIncrementTicks();
-
-        try {
-            player.getScheduler().runAtFixedRate(plugin, (t) -> chargeTask.run(), null, 1L, tickRate);
-            chargingPlayers.put(player.getUniqueId(), chargeTask);
-        } catch (Throwable e) {
-            chargeTask.runTaskTimer(plugin, 1L, tickRate);
-            chargeTask.markScheduled();
-            chargingPlayers.put(player.getUniqueId(), chargeTask);
-        }
+        chargeDriver.start(session);
     }
 
     public void stopChargingAndLaunch(Player player) {
-        ChargeTask task = chargingPlayers.get(player.getUniqueId());
-        if (task == null)
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session == null)
+            return;
+        if (!session.isCharging())
             return;
 
-        int percent = task.getChargePercent();
-        try {
-            task.cancel();
-        } catch (Exception e) {
-        }
-        chargingPlayers.remove(player.getUniqueId());
+        int percent = chargeDriver.stop(session);
 
         if (percent <= 0) {
             putdownMob(player);
             return;
         }
 
-        Entity entity = mountedMobs.get(player.getUniqueId());
-        if (entity == null || !entity.isValid()) {
-            mountedMobs.remove(player.getUniqueId());
+        // 被限流时只结束蓄力，生物仍留在玩家身上
+        if (!tryAction(player, ActionLimiter.Action.LAUNCH))
+            return;
+
+        Entity entity = session.getEntity();
+        if (!entity.isValid()) {
+            discardSession(session);
             return;
         }
 
-        ConfigManager cfg = plugin.getConfigManager();
+        // 区域投掷预算不足时排队等待，生物仍留在玩家身上
+        if (plugin.getConfigManager().get().isLaunchLimitEnabled()) {
+            Location loc = entity.getLocation();
+            if (launchBudget.tryAdmit(loc, entity.getEntityId(), false) != LaunchBudget.Admission.ADMITTED) {
+                launchBudget.queued(loc, 1);
+                queueLaunch(player, session, percent, loc, 1);
+                return;
+            }
+        }
+        launch(player, session, percent);
+    }
+
+    /**
+     * 下一 tick 重新申请投掷预算，超过 launch-limits.queue-ticks 后放弃
+     */
+    private void queueLaunch(Player player, PlayerSession session, int percent, Location queuedAt, int waited) {
+        Runnable retry = () -> {
+            Entity entity = session.getEntity();
+            // 排队期间玩家重新蓄力、放下或离线时放弃本次投掷
+            if (sessions.get(session.getPlayerId()) != session || session.isCharging() || !player.isValid()
+                    || !entity.isValid()) {
+                launchBudget.queued(queuedAt, -1);
+                return;
+            }
+            LaunchBudget.Admission admission = launchBudget.tryAdmit(entity.getLocation(), entity.getEntityId(), true);
+            if (admission == LaunchBudget.Admission.ADMITTED) {
+                launchBudget.queued(queuedAt, -1);
+                launch(player, session, percent);
+            } else if (waited >= plugin.getConfigManager().get().getLaunchQueueTicks()) {
+                launchBudget.queued(queuedAt, -1);
+                launchBudget.rejected(queuedAt);
+                player.sendMessage(ChatColor.RED + plugin.getLanguageManager().getMessage("launch-throttled"));
+            } else {
+                queueLaunch(player, session, percent, queuedAt, waited + 1);
+            }
+        };
+
+        try {
+            player.getScheduler().runDelayed(plugin, (t) -> retry.run(), () -> launchBudget.queued(queuedAt, -1),
+                    1L);
+        } catch (Throwable e) {
+            Bukkit.getScheduler().runTaskLater(plugin, retry, 1L);
+        }
+    }
+
+    private void launch(Player player, PlayerSession session, int percent) {
+        Entity entity = session.getEntity();
+        Location origin = player.getLocation();
+        ConfigSnapshot cfg = plugin.getConfigManager().get();
+        WorldSettings world = session.worldSettings(cfg, origin.getWorld());
+        LaunchProfile profile = cfg.profile(entity.getType());
         double chargeRatio = percent / 100.0;
 
-        // 物理计算
-        Vector lookDir = player.getLocation().getDirection();
-        double speed = cfg.getVelocityMultiplier() * chargeRatio;
-        Vector velocity = lookDir.multiply(speed);
-        velocity.add(new Vector(0, cfg.getVerticalBias() * chargeRatio, 0));
+        // 物理计算：力度和垂直补偿按生物质量缩放，再限制到档案的速度上限
+        Vector velocity = origin.getDirection().multiply(world.getVelocityMultiplier());
+        velocity.setY(velocity.getY() + world.getVerticalBias() + profile.getVerticalBias());
+        velocity.multiply(chargeRatio * profile.getInverseMass());
+        double speedSq = velocity.lengthSquared();
+        double maxSpeed = profile.getMaxSpeed();
+        if (speedSq > maxSpeed * maxSpeed)
+            velocity.multiply(maxSpeed / Math.sqrt(speedSq));
 
-        MobLaunchEvent event = new MobLaunchEvent(player, entity, velocity);
+        MobLaunchEvent event = new MobLaunchEvent(player, entity, velocity, profile);
         Bukkit.getPluginManager().callEvent(event);
 
         if (event.isCancelled()) {
+            launchBudget.release(entity.getEntityId());
             putdownMob(player);
             return;
         }
 
-        unmarkMobAsMounted(entity);
         if (player.isValid())
             player.removePassenger(entity);
-        mountedMobs.remove(player.getUniqueId());
+        discardSession(session);
 
-        Runnable launch = () -> {
+        // 落地免伤与投掷预算的归还都依赖会话监听器
+        plugin.getSessionListener().ensureRegistered();
+        Runnable throwTask = () -> {
             if (entity.isValid()) {
-                if (cfg.isDisableFallDamage()) {
-                    entity.getPersistentDataContainer().set(noFallKey, PersistentDataType.BYTE, (byte) 1);
-                }
+                if (profile.isFallProtected(world))
+                    launchRegistry.add(entity.getEntityId(), world.getLandingGraceMillis());
 
                 entity.setVelocity(event.getVelocity());
-                playSound(player, "launch");
+                ConfigSnapshot current = plugin.getConfigManager().get();
+                boolean hitPlayers = current.isEntityImpactEnabled() && current.isImpactPlayersEnabled()
+                        && player.hasPermission(PermissionCache.IMPACT_PLAYERS);
+                flightTracker.track(entity, player.getUniqueId(), event.getVelocity(), profile.getDrag(),
+                        hitPlayers);
+                playSound(player, SoundCue.LAUNCH);
+                plugin.getMetrics().recordLaunch();
             }
         };
 
         try {
-            entity.getScheduler().runDelayed(plugin, (t) -> launch.run(), null, 1L);
+            entity.getScheduler().runDelayed(plugin, (t) -> throwTask.run(),
+                    () -> launchBudget.release(entity.getEntityId()), 1L);
         } catch (Throwable e) {
-            Bukkit.getScheduler().runTaskLater(plugin, launch, 1L);
+            Bukkit.getScheduler().runTaskLater(plugin, throwTask, 1L);
         }
 
         if (player.isValid()) {
@@ -265,216 +436,158 @@ public class MobManager {
 
     // --- 辅助方法 ---
     public boolean isPlayerHoldingMob(Player player) {
-        Entity e = mountedMobs.get(player.getUniqueId());
-        if (e == null)
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session == null)
             return false;
+        Entity e = session.getEntity();
         if (!e.isValid()) {
-            mountedMobs.remove(player.getUniqueId());
+            discardSession(session);
             return false;
         }
-        return player.getPassengers().contains(e);
+        return isRiding(e, player.getUniqueId());
+    }
+
+    /**
+     * 判断 entity 是否正被 player 抱着 (常数时间，不复制乘客列表)
+     */
+    public boolean isHeldBy(Player player, Entity entity) {
+        PlayerSession session = sessions.getByEntity(entity.getUniqueId());
+        return session != null && session.getPlayerId().equals(player.getUniqueId())
+                && isRiding(entity, player.getUniqueId());
     }
 
     public boolean isMobMounted(Entity entity) {
-        if (entity == null || !entity.isValid())
+        if (entity == null)
             return false;
-        boolean isMarked = entity.getPersistentDataContainer().has(mobLaunchKey, PersistentDataType.BYTE);
-        if (!isMarked)
+        PlayerSession holder = sessions.getByEntity(entity.getUniqueId());
+        if (!entity.isValid()) {
+            if (holder != null)
+                discardSession(holder);
             return false;
-        for (Player p : Bukkit.getOnlinePlayers()) {
-            if (p.getPassengers().contains(entity))
+        }
+        if (holder != null) {
+            if (isRiding(entity, holder.getPlayerId()))
                 return true;
+            // 索引自愈：实体已不在持有者身上
+            discardSession(holder);
+            return false;
         }
-        unmarkMobAsMounted(entity);
-        cleanupMountedMobsMap(entity);
+        releaseDangling(entity);
+        // 清理旧版本残留的标记
+        if (entity.getPersistentDataContainer().has(mobLaunchKey, PersistentDataType.BYTE))
+            entity.getPersistentDataContainer().remove(mobLaunchKey);
         return false;
     }
 
-    private void cleanupMountedMobsMap(Entity entity) {
-        UUID pid = null;
-        for (Map.Entry<UUID, Entity> en : mountedMobs.entrySet()) {
-            if (en.getValue().equals(entity)) {
-                pid = en.getKey();
-                break;
-            }
-        }
-        if (pid != null) {
-            mountedMobs.remove(pid);
-            ChargeTask t = chargingPlayers.get(pid);
-            if (t != null) {
-                try {
-                    t.cancel();
-                } catch (Exception e) {
-                }
-                chargingPlayers.remove(pid);
-            }
-        }
+    /**
+     * 若实体是上次运行遗留的被抱起生物，则将其放下并从日志中移除
+     */
+    public void releaseDangling(Entity entity) {
+        if (danglingMounts.isEmpty() || !danglingMounts.remove(entity.getUniqueId()))
+            return;
+        if (sessions.getByEntity(entity.getUniqueId()) == null && entity.getVehicle() instanceof Player)
+            entity.leaveVehicle();
+        mountJournal.recordRelease(entity.getUniqueId());
+    }
+
+    private boolean isRiding(Entity entity, UUID playerId) {
+        Entity vehicle = entity.getVehicle();
+        return vehicle != null && vehicle.getUniqueId().equals(playerId);
+    }
+
+    private void discardSession(PlayerSession session) {
+        if (sessions.remove(session))
+            endSession(session);
     }
 
-    private void markMobAsMounted(Entity e) {
-        e.getPersistentDataContainer().set(mobLaunchKey, PersistentDataType.BYTE, (byte) 1);
+    /**
+     * 会话已从表中移除后调用：停止蓄力并写入放下记录
+     */
+    private void endSession(PlayerSession session) {
+        chargeDriver.release(session);
+        mountJournal.recordRelease(session.getEntityId());
     }
 
-    private void unmarkMobAsMounted(Entity e) {
-        e.getPersistentDataContainer().remove(mobLaunchKey);
+    /**
+     * 统计残留会话：玩家已离线或生物已失效，但会话仍在表中
+     */
+    public int countLeakedSessions() {
+        int leaked = 0;
+        for (PlayerSession session : sessions.all()) {
+            if (!session.getPlayer().isOnline() || !session.getEntity().isValid())
+                leaked++;
+        }
+        return leaked;
     }
 
     public void removeAllMountedMobs() {
-        for (Map.Entry<UUID, Entity> en : mountedMobs.entrySet()) {
-            Player p = Bukkit.getPlayer(en.getKey());
-            Entity e = en.getValue();
-            if (p != null && p.isOnline() && e != null && e.isValid())
+        for (PlayerSession session : sessions.all()) {
+            endSession(session);
+            Player p = Bukkit.getPlayer(session.getPlayerId());
+            Entity e = session.getEntity();
+            if (p != null && p.isOnline() && e.isValid())
                 p.removePassenger(e);
-            if (e != null && e.isValid())
-                unmarkMobAsMounted(e);
         }
+        sessions.clear();
+        pickupPipeline.clear();
+        chargeDriver.shutdown();
+        launchRegistry.clear();
+        flightTracker.clear();
+        trajectoryPreview.clear();
+        launchBudget.clear();
+        mountJournal.close();
+        ownerIndex.save();
     }
 
     private boolean checkMobOwnership(Player p, Entity e) {
         if (e.getCustomName() == null)
             return true;
-        NamespacedKey k = new NamespacedKey(plugin, "MobLaunchOwner");
-        if (e.getPersistentDataContainer().has(k, PersistentDataType.STRING)) {
-            String uuid = e.getPersistentDataContainer().get(k, PersistentDataType.STRING);
-            if (!p.getUniqueId().toString().equals(uuid) && !p.hasPermission("moblaunch.admin"))
-                return false;
-        }
-        return true;
+        UUID owner = syncOwner(e);
+        return owner == null || owner.equals(p.getUniqueId()) || permissionCache.isAdmin(p);
     }
 
     public void setMobOwner(Entity e, Player p) {
-        e.getPersistentDataContainer().set(new NamespacedKey(plugin, "MobLaunchOwner"), PersistentDataType.STRING,
-                p.getUniqueId().toString());
+        e.getPersistentDataContainer().set(ownerKey, PersistentDataType.BYTE_ARRAY, encodeUuid(p.getUniqueId()));
+        ownerIndex.put(e, p.getUniqueId());
     }
 
-    // --- 蓄力任务 ---
-    private class ChargeTask extends BukkitRunnable {
-        private final Player player;
-        private int chargePercent = 0;
-        private boolean isCancelled = false;
-        private boolean isScheduled = false;
-
-        private enum State {
-            INCREASING, MAX_PAUSE, DECREASING, ZERO_PAUSE
-        }
-
-        private State currentState = State.INCREASING;
-        private int pauseTicks = 0;
-        private final ConfigManager cfg;
-
-        public ChargeTask(Player p) {
-            this.player = p;
-            this.cfg = plugin.getConfigManager();
-        }
-
-        @Override
-        public void run() {
-            if (isCancelled || !isPlayerHoldingMob(player)) {
-                cancel();
-                return;
-            }
-
-            int step = cfg.getChargeStep();
-
-            switch (currentState) {
-                case INCREASING:
-                    chargePercent += step;
-                    if (chargePercent >= 100) {
-                        chargePercent = 100;
-                        currentState = State.MAX_PAUSE;
-                        pauseTicks = 0;
-                        playSound(player, "max-charge");
-                    } else {
-                        // 蓄力音效：每10%播放一次，音调升高
-                        if (chargePercent % (step * 2) == 0) {
-                            ConfigManager.SoundConfig sc = cfg.getSound("charging");
-                            if (sc.enabled) {
-                                float dynPitch = sc.pitch + (chargePercent / 100.0f);
-                                playSound(player, "charging", dynPitch);
-                            }
-                        }
-                    }
-                    break;
-                case MAX_PAUSE:
-                    pauseTicks++;
-                    if (pauseTicks >= cfg.getPauseAtMaxTicks())
-                        currentState = State.DECREASING;
-                    break;
-                case DECREASING:
-                    chargePercent -= step;
-                    if (chargePercent <= 0) {
-                        chargePercent = 0;
-                        currentState = State.ZERO_PAUSE;
-                        pauseTicks = 0;
-                        // 归零音效 (已配置)
-                        playSound(player, "zero-charge");
-                    } else {
-                        // 新增：减少时的音效
-                        if (chargePercent % (step * 2) == 0) {
-                            ConfigManager.SoundConfig sc = cfg.getSound("decreasing");
-                            if (sc.enabled) {
-                                // 动态音调：随着百分比降低，音调也降低 (模拟泄气)
-                                float dynPitch = sc.pitch + (chargePercent / 100.0f);
-                                playSound(player, "decreasing", dynPitch);
-                            }
-                        }
-                    }
-                    break;
-                case ZERO_PAUSE:
-                    pauseTicks++;
-                    if (pauseTicks >= cfg.getPauseAtZeroTicks())
-                        currentState = State.INCREASING;
-                    break;
-            }
-            if (cfg.isEnableActionBar()) {
-                displayBar(player, chargePercent);
+    /**
+     * 读取实体的主人并同步所有权索引 (需在实体所属线程调用)
+     * 旧版本的字符串格式会转换为 16 字节格式；批量转移后尚未写回的新主人在此写入 PDC
+     *
+     * @return 主人，没有主人时为 null
+     */
+    public UUID syncOwner(Entity e) {
+        PersistentDataContainer pdc = e.getPersistentDataContainer();
+        UUID stored = null;
+        if (pdc.has(ownerKey, PersistentDataType.BYTE_ARRAY)) {
+            stored = decodeUuid(pdc.get(ownerKey, PersistentDataType.BYTE_ARRAY));
+        } else if (pdc.has(ownerKey, PersistentDataType.STRING)) {
+            try {
+                stored = UUID.fromString(pdc.get(ownerKey, PersistentDataType.STRING));
+                pdc.set(ownerKey, PersistentDataType.BYTE_ARRAY, encodeUuid(stored));
+            } catch (IllegalArgumentException ex) {
+                pdc.remove(ownerKey);
             }
         }
 
-        public int getChargePercent() {
-            return chargePercent;
-        }
-
-        @Override
-        public synchronized void cancel() {
-            isCancelled = true;
-            if (isScheduled)
-                try {
-                    super.cancel();
-                } catch (Exception e) {
-                }
-        }
-
-        public void markScheduled() {
-            isScheduled = true;
+        UUID owner = ownerIndex.sync(e, stored);
+        if (owner != null && !owner.equals(stored)) {
+            pdc.set(ownerKey, PersistentDataType.BYTE_ARRAY, encodeUuid(owner));
+            ownerIndex.markSynced(e.getUniqueId());
         }
+        return owner;
+    }
 
-        private void displayBar(Player p, int pct) {
-            if (currentState == State.ZERO_PAUSE) {
-                p.sendActionBar(ChatColor.GRAY + "[ " + ChatColor.YELLOW + "松开潜行放下生物" + ChatColor.GRAY + " ]");
-                return;
-            }
-            int len = cfg.getBarLength();
-            int filled = (int) (len * (pct / 100.0));
-
-            StringBuilder sb = new StringBuilder();
-
-            String color = cfg.getColorCharging();
-            if (currentState == State.MAX_PAUSE)
-                color = cfg.getColorFull();
-            else if (currentState == State.DECREASING)
-                color = cfg.getColorDecreasing();
-
-            sb.append(ChatColor.translateAlternateColorCodes('&', color));
-            String ch = cfg.getBarChar();
-
-            for (int i = 0; i < filled; i++)
-                sb.append(ch);
-            sb.append(ChatColor.WHITE);
-            for (int i = filled; i < len; i++)
-                sb.append(ch);
+    private static byte[] encodeUuid(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits())
+                .array();
+    }
 
-            p.sendActionBar(sb.toString());
-        }
+    private static UUID decodeUuid(byte[] data) {
+        if (data == null || data.length != 16)
+            return null;
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        return new UUID(buf.getLong(), buf.getLong());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,232 @@
+package com.moblaunch.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+
+/**
+ * 抱起日志
+ * 抱起状态只保存在内存中，同时以追加方式写入数据目录下的小型日志文件 (每条 17 字节)，
+ * 插件启动时回放日志，找出上次未正常放下 (崩溃或 onDisable 未执行) 的生物，
+ * 不再在每次抱起和放下时写入实体 PDC
+ * 抱起与放下只把记录放入队列，由独立的写入线程批量写入并在记录过多时压缩，游戏线程不做文件 IO
+ */
+public class MountJournal {
+    private static final int MAGIC = 0x4D4C4A31; // "MLJ1"
+    private static final byte OP_MOUNT = 1;
+    private static final byte OP_RELEASE = 2;
+    private static final int RECORD_SIZE = 17;
+    // 队列中的关闭标记
+    private static final Entry CLOSE = new Entry((byte) 0, null);
+
+    // 日志记录数超过此值且远多于当前抱起数时压缩
+    private static final int COMPACT_THRESHOLD = 4096;
+    // 一次批量写入的最大记录数
+    private static final int BATCH_RECORDS = 256;
+    // 关闭时等待写入线程写完剩余记录的时间
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final MobLaunch plugin;
+    private final File file;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+
+    // 以下字段在 open 之后只由写入线程访问
+    private final ByteBuffer batch = ByteBuffer.allocate(BATCH_RECORDS * RECORD_SIZE);
+    private final List<Entry> drained = new ArrayList<>(BATCH_RECORDS);
+    private final Set<UUID> live = new LinkedHashSet<>();
+    private FileChannel channel;
+    private int records;
+
+    private Thread writer;
+
+    private static final class Entry {
+        final byte op;
+        final UUID id;
+
+        Entry(byte op, UUID id) {
+            this.op = op;
+            this.id = id;
+        }
+    }
+
+    public MountJournal(MobLaunch plugin, File file) {
+        this.plugin = plugin;
+        this.file = file;
+    }
+
+    /**
+     * 回放日志并打开以供追加，随后启动写入线程 (只在启用插件时调用一次)
+     *
+     * @return 上次运行中被抱起但没有放下记录的实体
+     */
+    public Set<UUID> open() {
+        Set<UUID> dangling = new LinkedHashSet<>();
+        try {
+            if (file.isFile())
+                replay(dangling);
+            live.clear();
+            live.addAll(dangling);
+            rewrite();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "无法打开抱起日志 " + file.getName() + "，崩溃后将无法自动清理", e);
+            channel = null;
+        }
+        writer = new Thread(this::run, "MobLaunch-MountJournal");
+        writer.setDaemon(true);
+        writer.start();
+        return dangling;
+    }
+
+    private void replay(Set<UUID> dangling) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        if (data.remaining() < 4 || data.getInt() != MAGIC) {
+            plugin.getLogger().warning("抱起日志格式无效，已忽略: " + file.getName());
+            return;
+        }
+        // 末尾不完整的记录 (写入中途崩溃) 直接忽略
+        while (data.remaining() >= RECORD_SIZE) {
+            byte op = data.get();
+            UUID id = new UUID(data.getLong(), data.getLong());
+            if (op == OP_MOUNT)
+                dangling.add(id);
+            else if (op == OP_RELEASE)
+                dangling.remove(id);
+        }
+    }
+
+    public void recordMount(UUID entityId) {
+        queue.offer(new Entry(OP_MOUNT, entityId));
+    }
+
+    public void recordRelease(UUID entityId) {
+        queue.offer(new Entry(OP_RELEASE, entityId));
+    }
+
+    /**
+     * 写入线程：阻塞等待记录，每次取出队列中已有的全部记录合并为一次写入
+     */
+    private void run() {
+        try {
+            while (true) {
+                drained.add(queue.take());
+                queue.drainTo(drained, BATCH_RECORDS - 1);
+                boolean closing = false;
+                batch.clear();
+                for (Entry entry : drained) {
+                    if (entry == CLOSE) {
+                        closing = true;
+                        continue;
+                    }
+                    // 重复的抱起或没有对应抱起的放下不写入
+                    boolean changed = entry.op == OP_MOUNT ? live.add(entry.id) : live.remove(entry.id);
+                    if (changed)
+                        batch.put(entry.op).putLong(entry.id.getMostSignificantBits())
+                                .putLong(entry.id.getLeastSignificantBits());
+                }
+                drained.clear();
+                batch.flip();
+                append();
+                if (closing) {
+                    compactOnClose();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            closeQuietly();
+        }
+    }
+
+    private void append() {
+        if (channel == null || !batch.hasRemaining())
+            return;
+        try {
+            records += batch.remaining() / RECORD_SIZE;
+            while (batch.hasRemaining())
+                channel.write(batch);
+            if (records > COMPACT_THRESHOLD && records > live.size() * 4)
+                rewrite();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "写入抱起日志失败，已停用日志", e);
+            closeQuietly();
+        }
+    }
+
+    /**
+     * 只保留当前仍被抱起的实体，重写日志文件
+     */
+    private void rewrite() throws IOException {
+        closeQuietly();
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists())
+            parent.mkdirs();
+
+        File tmp = new File(parent, file.getName() + ".tmp");
+        ByteBuffer buf = ByteBuffer.allocate(4 + live.size() * RECORD_SIZE);
+        buf.putInt(MAGIC);
+        for (UUID id : live)
+            buf.put(OP_MOUNT).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        buf.flip();
+        try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buf.hasRemaining())
+                out.write(buf);
+            out.force(false);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        records = live.size();
+    }
+
+    /**
+     * 正常关闭：写完队列中剩余的记录后压缩，所有生物均已放下时日志只剩文件头
+     */
+    public void close() {
+        Thread current = writer;
+        if (current == null)
+            return;
+        writer = null;
+        queue.offer(CLOSE);
+        try {
+            current.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (current.isAlive())
+            plugin.getLogger().warning("抱起日志未能在关闭前写完");
+    }
+
+    private void compactOnClose() {
+        if (channel == null)
+            return;
+        try {
+            rewrite();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "压缩抱起日志失败", e);
+        }
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+}
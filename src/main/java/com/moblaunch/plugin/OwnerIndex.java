@@ -0,0 +1,295 @@
+package com.moblaunch.plugin;
+
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * 生物所有权索引
+ * 在内存中维护 主人 -> 生物 的索引以及每个生物最后所在的区块，
+ * 在设置所有权、实体加载和实体移出世界时更新，并定期保存到数据目录下的紧凑二进制文件；
+ * 查询和批量转移所有权都只操作索引，不会加载区块。
+ * 转移后实体 PDC 中的主人会在该生物下次加载或被交互时更新
+ */
+public class OwnerIndex implements Listener {
+    private static final int MAGIC = 0x4D4C4F31; // "MLO1"
+    private static final int RECORD_SIZE = 57;
+    private static final byte FLAG_STALE = 1;
+
+    private final MobLaunch plugin;
+    private final File file;
+    private final Map<UUID, Entry> byEntity = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> byOwner = new ConcurrentHashMap<>();
+    private volatile boolean dirty = false;
+
+    public OwnerIndex(MobLaunch plugin, File file) {
+        this.plugin = plugin;
+        this.file = file;
+        load();
+
+        try {
+            Bukkit.getAsyncScheduler().runAtFixedRate(plugin, (t) -> saveIfDirty(), 5L, 5L, TimeUnit.MINUTES);
+        } catch (Throwable e) {
+            Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::saveIfDirty, 6000L, 6000L);
+        }
+    }
+
+    /**
+     * 索引中的一条记录
+     */
+    public static final class Entry {
+        private final UUID entityId;
+        private final UUID owner;
+        private volatile UUID worldId;
+        private volatile int chunkX;
+        private volatile int chunkZ;
+        private volatile boolean stale;
+
+        Entry(UUID entityId, UUID owner, UUID worldId, int chunkX, int chunkZ, boolean stale) {
+            this.entityId = entityId;
+            this.owner = owner;
+            this.worldId = worldId;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.stale = stale;
+        }
+
+        public UUID getEntityId() {
+            return entityId;
+        }
+
+        public UUID getOwner() {
+            return owner;
+        }
+
+        public UUID getWorldId() {
+            return worldId;
+        }
+
+        public int getChunkX() {
+            return chunkX;
+        }
+
+        public int getChunkZ() {
+            return chunkZ;
+        }
+
+        /**
+         * 实体 PDC 中的主人是否已过期 (转移后尚未写回)
+         */
+        public boolean isStale() {
+            return stale;
+        }
+    }
+
+    /**
+     * 记录实体的主人与当前位置
+     */
+    public void put(Entity entity, UUID owner) {
+        Location loc = entity.getLocation();
+        put(new Entry(entity.getUniqueId(), owner, loc.getWorld().getUID(), loc.getBlockX() >> 4,
+                loc.getBlockZ() >> 4, false));
+    }
+
+    private void put(Entry entry) {
+        Entry old = byEntity.put(entry.entityId, entry);
+        if (old != null && !old.owner.equals(entry.owner))
+            ownedSet(old.owner, false).remove(entry.entityId);
+        ownedSet(entry.owner, true).add(entry.entityId);
+        dirty = true;
+    }
+
+    private Set<UUID> ownedSet(UUID owner, boolean create) {
+        Set<UUID> set = byOwner.get(owner);
+        if (set == null) {
+            if (!create)
+                return Collections.emptySet();
+            set = byOwner.computeIfAbsent(owner, k -> ConcurrentHashMap.newKeySet());
+        }
+        return set;
+    }
+
+    public Entry get(UUID entityId) {
+        return byEntity.get(entityId);
+    }
+
+    public void remove(UUID entityId) {
+        Entry old = byEntity.remove(entityId);
+        if (old != null) {
+            ownedSet(old.owner, false).remove(entityId);
+            dirty = true;
+        }
+    }
+
+    /**
+     * 已加载的实体：与 PDC 中读到的主人同步索引，返回索引认为的主人
+     *
+     * @param pdcOwner PDC 中记录的主人，没有时为 null
+     */
+    public UUID sync(Entity entity, UUID pdcOwner) {
+        Entry entry = byEntity.get(entity.getUniqueId());
+        if (entry != null && entry.stale) {
+            if (entry.owner.equals(pdcOwner))
+                markSynced(entry.entityId);
+            updateLocation(entry, entity.getLocation());
+            return entry.owner;
+        }
+        if (pdcOwner == null) {
+            if (entry != null)
+                remove(entity.getUniqueId());
+            return null;
+        }
+        if (entry == null || !entry.owner.equals(pdcOwner)) {
+            put(entity, pdcOwner);
+        } else {
+            updateLocation(entry, entity.getLocation());
+        }
+        return pdcOwner;
+    }
+
+    /**
+     * PDC 已写回新主人
+     */
+    public void markSynced(UUID entityId) {
+        Entry entry = byEntity.get(entityId);
+        if (entry != null && entry.stale) {
+            entry.stale = false;
+            dirty = true;
+        }
+    }
+
+    /**
+     * 查询玩家拥有的全部生物
+     */
+    public List<Entry> getOwned(UUID owner) {
+        Set<UUID> ids = ownedSet(owner, false);
+        List<Entry> result = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            Entry entry = byEntity.get(id);
+            if (entry != null)
+                result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * 批量转移所有权，只修改索引，返回转移的生物数量
+     */
+    public int transfer(UUID from, UUID to) {
+        if (from.equals(to))
+            return 0;
+        // put 会把每个条目逐个移出原主人的集合，不整体删除集合：
+        // 遍历期间其他区域线程新登记给原主人的生物仍保留在索引中
+        int count = 0;
+        for (Entry entry : getOwned(from)) {
+            put(new Entry(entry.entityId, to, entry.worldId, entry.chunkX, entry.chunkZ, true));
+            count++;
+        }
+        return count;
+    }
+
+    public int size() {
+        return byEntity.size();
+    }
+
+    private void updateLocation(Entry entry, Location loc) {
+        int cx = loc.getBlockX() >> 4;
+        int cz = loc.getBlockZ() >> 4;
+        UUID world = loc.getWorld().getUID();
+        if (entry.chunkX != cx || entry.chunkZ != cz || !entry.worldId.equals(world)) {
+            entry.worldId = world;
+            entry.chunkX = cx;
+            entry.chunkZ = cz;
+            dirty = true;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemove(EntityRemoveFromWorldEvent event) {
+        if (byEntity.isEmpty())
+            return;
+        Entity entity = event.getEntity();
+        Entry entry = byEntity.get(entity.getUniqueId());
+        if (entry == null)
+            return;
+        if (entity.isDead()) {
+            remove(entity.getUniqueId());
+        } else {
+            // 区块卸载：记住最后所在的区块
+            updateLocation(entry, entity.getLocation());
+        }
+    }
+
+    // --- 持久化 ---
+    private void load() {
+        if (!file.isFile())
+            return;
+        try {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if (data.remaining() < 8 || data.getInt() != MAGIC) {
+                plugin.getLogger().warning("所有权索引格式无效，已忽略: " + file.getName());
+                return;
+            }
+            int count = data.getInt();
+            for (int i = 0; i < count && data.remaining() >= RECORD_SIZE; i++) {
+                UUID entity = new UUID(data.getLong(), data.getLong());
+                UUID owner = new UUID(data.getLong(), data.getLong());
+                UUID world = new UUID(data.getLong(), data.getLong());
+                int cx = data.getInt();
+                int cz = data.getInt();
+                boolean stale = (data.get() & FLAG_STALE) != 0;
+                put(new Entry(entity, owner, world, cx, cz, stale));
+            }
+            dirty = false;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "读取所有权索引失败", e);
+        }
+    }
+
+    public void saveIfDirty() {
+        if (dirty)
+            save();
+    }
+
+    public synchronized void save() {
+        dirty = false;
+        List<Entry> entries = new ArrayList<>(byEntity.values());
+        ByteBuffer buf = ByteBuffer.allocate(8 + entries.size() * RECORD_SIZE);
+        buf.putInt(MAGIC).putInt(entries.size());
+        for (Entry e : entries) {
+            buf.putLong(e.entityId.getMostSignificantBits()).putLong(e.entityId.getLeastSignificantBits());
+            buf.putLong(e.owner.getMostSignificantBits()).putLong(e.owner.getLeastSignificantBits());
+            buf.putLong(e.worldId.getMostSignificantBits()).putLong(e.worldId.getLeastSignificantBits());
+            buf.putInt(e.chunkX).putInt(e.chunkZ);
+            buf.put(e.stale ? FLAG_STALE : 0);
+        }
+        try {
+            File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+            Files.write(tmp.toPath(), buf.array());
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            plugin.getLogger().log(Level.WARNING, "保存所有权索引失败", e);
+        }
+    }
+}
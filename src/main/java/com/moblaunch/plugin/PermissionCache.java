@@ -0,0 +1,125 @@
+package com.moblaunch.plugin;
+
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 抱起权限缓存
+ * 每个玩家按 EntityType 序号缓存一份抱起判定 (位图)，首次用到时才计算；
+ * 在切换世界、退出、/ml reload 以及缓存过期 (permission-cache-seconds) 时失效
+ */
+public class PermissionCache {
+    public static final String USE = "moblaunch.use";
+    public static final String USE_ALL = "moblaunch.use.*";
+    public static final String ADMIN = "moblaunch.admin";
+    public static final String IMPACT_PLAYERS = "moblaunch.impact.players";
+
+    // 按 EntityType 序号预先拼接好的权限节点
+    private static final String[] USE_NODES;
+
+    static {
+        EntityType[] types = EntityType.values();
+        USE_NODES = new String[types.length];
+        for (EntityType type : types) {
+            USE_NODES[type.ordinal()] = USE + "." + type.name().toLowerCase();
+        }
+    }
+
+    /**
+     * 抱起判定结果
+     */
+    public enum Decision {
+        ALLOWED,
+        NO_PERMISSION,
+        NOT_ALLOWED
+    }
+
+    private static final byte UNKNOWN = -1;
+
+    private final MobLaunch plugin;
+    private final ConcurrentHashMap<UUID, Entry> entries;
+
+    public PermissionCache(MobLaunch plugin) {
+        this.plugin = plugin;
+        this.entries = new ConcurrentHashMap<>(64, 0.75f, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 判断玩家能否抱起该类型的生物
+     */
+    public Decision checkPickup(Player player, EntityType type) {
+        Entry entry = entry(player);
+        if (!entry.flag(player, Entry.USE_FLAG, USE))
+            return Decision.NO_PERMISSION;
+
+        int ord = type.ordinal();
+        int word = ord >>> 6;
+        long bit = 1L << ord;
+        if ((entry.known[word] & bit) == 0) {
+            boolean allowed = entry.flag(player, Entry.USE_ALL_FLAG, USE_ALL)
+                    || player.hasPermission(USE_NODES[ord])
+                    || entry.flag(player, Entry.ADMIN_FLAG, ADMIN)
+                    || plugin.getConfigManager().get().world(player.getWorld()).isMobAllowed(type);
+            if (allowed)
+                entry.allowed[word] |= bit;
+            entry.known[word] |= bit;
+        }
+        return (entry.allowed[word] & bit) != 0 ? Decision.ALLOWED : Decision.NOT_ALLOWED;
+    }
+
+    /**
+     * 玩家是否拥有 moblaunch.admin
+     */
+    public boolean isAdmin(Player player) {
+        return entry(player).flag(player, Entry.ADMIN_FLAG, ADMIN);
+    }
+
+    public void invalidate(UUID playerId) {
+        entries.remove(playerId);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private Entry entry(Player player) {
+        UUID id = player.getUniqueId();
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(id);
+        if (entry == null || now >= entry.expiresAt) {
+            entry = new Entry(now + plugin.getConfigManager().get().getPermissionCacheSeconds() * 1000L);
+            entries.put(id, entry);
+        }
+        return entry;
+    }
+
+    private static final class Entry {
+        static final int USE_FLAG = 0;
+        static final int USE_ALL_FLAG = 1;
+        static final int ADMIN_FLAG = 2;
+
+        final long expiresAt;
+        final long[] known;
+        final long[] allowed;
+        final byte[] flags = { UNKNOWN, UNKNOWN, UNKNOWN };
+
+        Entry(long expiresAt) {
+            int words = (USE_NODES.length + 63) >>> 6;
+            this.expiresAt = expiresAt;
+            this.known = new long[words];
+            this.allowed = new long[words];
+        }
+
+        boolean flag(Player player, int index, String node) {
+            byte value = flags[index];
+            if (value == UNKNOWN) {
+                value = player.hasPermission(node) ? (byte) 1 : (byte) 0;
+                flags[index] = value;
+            }
+            return value == 1;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.moblaunch.plugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 抱起流水线
+ * 抱起需要先把生物异步传送到玩家位置，再回到生物所属线程完成骑乘；
+ * 这里按玩家和按实体记录进行中的请求：同一玩家对同一生物的重复请求会合并，
+ * 玩家或生物已有进行中的请求时拒绝新请求；超过期限、玩家退出/死亡/传送时取消，
+ * 取消或超时的请求即使传送稍后完成也不会再骑乘
+ */
+public class PickupPipeline {
+    private static final int PENDING = 0;
+    private static final int DONE = 1;
+    private static final int CANCELLED = 2;
+
+    /**
+     * 提交结果
+     */
+    public enum Result {
+        SUBMITTED,
+        COALESCED,
+        BUSY
+    }
+
+    private final MobLaunch plugin;
+    private final Map<UUID, Request> byPlayer = new ConcurrentHashMap<>();
+    private final Map<UUID, Request> byEntity = new ConcurrentHashMap<>();
+
+    public PickupPipeline(MobLaunch plugin) {
+        this.plugin = plugin;
+
+        // 兜底：传送一直没有完成的请求到期后清除，不会永久占用玩家
+        try {
+            Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, (t) -> expireOverdue(), 5L, 5L);
+        } catch (Throwable e) {
+            Bukkit.getScheduler().runTaskTimer(plugin, this::expireOverdue, 5L, 5L);
+        }
+    }
+
+    private static final class Request {
+        final UUID playerId;
+        final UUID entityId;
+        final long startedAt;
+        final long deadline;
+        final AtomicInteger state = new AtomicInteger(PENDING);
+
+        Request(UUID playerId, UUID entityId, long startedAt, long deadline) {
+            this.playerId = playerId;
+            this.entityId = entityId;
+            this.startedAt = startedAt;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 检查玩家是否已有进行中的请求，在做其他检查之前调用
+     *
+     * @return 对同一生物的重复请求返回 COALESCED，对其他生物返回 BUSY，没有进行中的请求时返回 null
+     */
+    public Result checkInFlight(UUID playerId, UUID entityId) {
+        if (byPlayer.isEmpty())
+            return null;
+        Request current = byPlayer.get(playerId);
+        if (current == null)
+            return null;
+        if (current.entityId.equals(entityId)) {
+            plugin.getMetrics().recordPickupCoalesced();
+            return Result.COALESCED;
+        }
+        return Result.BUSY;
+    }
+
+    /**
+     * 提交抱起请求
+     *
+     * @param mount 传送完成后在生物所属线程上执行的骑乘逻辑
+     */
+    public Result submit(Player player, Entity entity, Runnable mount) {
+        UUID playerId = player.getUniqueId();
+        UUID entityId = entity.getUniqueId();
+
+        Result inFlight = checkInFlight(playerId, entityId);
+        if (inFlight != null)
+            return inFlight;
+
+        long now = System.nanoTime();
+        long deadline = now + plugin.getConfigManager().get().getPickupDeadlineNanos();
+        Request request = new Request(playerId, entityId, now, deadline);
+        if (byPlayer.putIfAbsent(playerId, request) != null)
+            return Result.BUSY;
+        if (byEntity.putIfAbsent(entityId, request) != null) {
+            byPlayer.remove(playerId, request);
+            return Result.BUSY;
+        }
+
+        try {
+            schedule(request, player.getLocation(), entity, mount);
+        } catch (Throwable e) {
+            // 调度本身失败 (服务端不支持异步传送等)：撤销登记再交给调用方回退，避免玩家被占用到超时
+            finish(request, CANCELLED);
+            throw e;
+        }
+        return Result.SUBMITTED;
+    }
+
+    /**
+     * 异步加载区块并传送，完成后回到生物所属线程骑乘
+     */
+    private void schedule(Request request, Location target, Entity entity, Runnable mount) {
+        preload(target).thenCompose(ignored -> {
+            if (request.state.get() != PENDING)
+                return CompletableFuture.completedFuture(false);
+            return entity.teleportAsync(target);
+        }).whenComplete((success, error) -> {
+            if (error != null || !Boolean.TRUE.equals(success)) {
+                finish(request, CANCELLED);
+                return;
+            }
+            Runnable complete = () -> {
+                if (System.nanoTime() - request.deadline > 0) {
+                    expire(request);
+                    return;
+                }
+                if (!finish(request, DONE))
+                    return;
+                plugin.getMetrics().recordPickupLatency(System.nanoTime() - request.startedAt);
+                mount.run();
+            };
+            try {
+                // 实体已失效时 run 返回 null
+                Object task = entity.getScheduler().run(plugin, (t) -> complete.run(),
+                        () -> finish(request, CANCELLED));
+                if (task == null)
+                    finish(request, CANCELLED);
+            } catch (Throwable e) {
+                complete.run();
+            }
+        });
+    }
+
+    /**
+     * 目标区块未加载时先异步加载，避免传送在主线程上同步加载区块
+     */
+    private CompletableFuture<?> preload(Location target) {
+        World world = target.getWorld();
+        int cx = target.getBlockX() >> 4;
+        int cz = target.getBlockZ() >> 4;
+        if (world == null || world.isChunkLoaded(cx, cz))
+            return CompletableFuture.completedFuture(null);
+        return world.getChunkAtAsync(cx, cz);
+    }
+
+    /**
+     * 结束请求并移出跟踪表，返回是否由本次调用结束 (已结束的请求返回 false)
+     */
+    private boolean finish(Request request, int state) {
+        if (!request.state.compareAndSet(PENDING, state))
+            return false;
+        byPlayer.remove(request.playerId, request);
+        byEntity.remove(request.entityId, request);
+        return true;
+    }
+
+    private void expire(Request request) {
+        if (finish(request, CANCELLED))
+            plugin.getMetrics().recordPickupTimedOut();
+    }
+
+    private void expireOverdue() {
+        if (byPlayer.isEmpty())
+            return;
+        long now = System.nanoTime();
+        for (Request request : byPlayer.values()) {
+            if (now - request.deadline > 0)
+                expire(request);
+        }
+    }
+
+    /**
+     * 取消玩家进行中的抱起 (退出、死亡、传送)
+     */
+    public void cancelPlayer(UUID playerId) {
+        if (byPlayer.isEmpty())
+            return;
+        Request request = byPlayer.get(playerId);
+        if (request != null && finish(request, CANCELLED))
+            plugin.getMetrics().recordPickupCancelled();
+    }
+
+    /**
+     * 取消以该生物为目标的抱起 (生物被移除)
+     */
+    public void cancelEntity(UUID entityId) {
+        if (byEntity.isEmpty())
+            return;
+        Request request = byEntity.get(entityId);
+        if (request != null && finish(request, CANCELLED))
+            plugin.getMetrics().recordPickupCancelled();
+    }
+
+    public boolean isPending(UUID playerId) {
+        return byPlayer.containsKey(playerId);
+    }
+
+    /**
+     * 是否有以该生物为目标的进行中的抱起
+     */
+    public boolean isEntityPending(UUID entityId) {
+        return !byEntity.isEmpty() && byEntity.containsKey(entityId);
+    }
+
+    /**
+     * 当前进行中的请求数
+     */
+    public int size() {
+        return byPlayer.size();
+    }
+
+    public boolean isEmpty() {
+        return byPlayer.isEmpty();
+    }
+
+    public void clear() {
+        for (Request request : byPlayer.values())
+            finish(request, CANCELLED);
+    }
+}
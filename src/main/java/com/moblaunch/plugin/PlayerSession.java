@@ -0,0 +1,105 @@
+package com.moblaunch.plugin;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+
+/**
+ * 玩家会话
+ * 保存玩家当前抱起的生物与蓄力状态，一个玩家同一时刻只有一个会话
+ * 会话在整个持有期间被复用，潜行切换只重置蓄力状态，不会重新分配对象
+ */
+public class PlayerSession {
+    private final Player player;
+    private final UUID playerId;
+    private final Entity entity;
+    private final UUID entityId;
+
+    private volatile boolean charging;
+    private volatile int chargePercent;
+
+    // 以下字段只由蓄力驱动在玩家所属线程上读写
+    ChargeState chargeState = ChargeState.INCREASING;
+    int cycleTick;
+    int previewTicks;
+    Component lastFrame;
+    int ticksSinceSend;
+    int driverIndex = -1;
+    // 按 (配置快照, 世界) 缓存的世界参数表，只在重载配置或切换世界后重新查找
+    private ConfigSnapshot settingsSnapshot;
+    private World settingsWorld;
+    private WorldSettings settings;
+    // 所在的驱动组，移交区域时由原区域线程清空、由新区域线程设置
+    volatile ChargeDriver.Group driverGroup;
+
+    public PlayerSession(Player player, Entity entity) {
+        this.player = player;
+        this.playerId = player.getUniqueId();
+        this.entity = entity;
+        this.entityId = entity.getUniqueId();
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public Entity getEntity() {
+        return entity;
+    }
+
+    public UUID getEntityId() {
+        return entityId;
+    }
+
+    public boolean isCharging() {
+        return charging;
+    }
+
+    public int getChargePercent() {
+        return chargePercent;
+    }
+
+    void setChargePercent(int chargePercent) {
+        this.chargePercent = chargePercent;
+    }
+
+    /**
+     * 玩家当前所在世界生效的参数表，在玩家所属线程上调用
+     */
+    WorldSettings worldSettings(ConfigSnapshot cfg, World world) {
+        if (cfg != settingsSnapshot || world != settingsWorld) {
+            settings = cfg.world(world);
+            settingsSnapshot = cfg;
+            settingsWorld = world;
+        }
+        return settings;
+    }
+
+    /**
+     * 重置蓄力状态并进入蓄力
+     */
+    void beginCharge() {
+        chargeState = ChargeState.INCREASING;
+        chargePercent = 0;
+        cycleTick = 0;
+        previewTicks = 0;
+        lastFrame = null;
+        ticksSinceSend = 0;
+        charging = true;
+    }
+
+    /**
+     * 结束蓄力，返回结束时的蓄力百分比
+     */
+    int endCharge() {
+        charging = false;
+        return chargePercent;
+    }
+}
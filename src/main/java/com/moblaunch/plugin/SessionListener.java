@@ -0,0 +1,167 @@
+package com.moblaunch.plugin;
+
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.player.PlayerToggleSneakEvent;
+
+/**
+ * 会话期间的事件监听器
+ * 只有存在抱起会话或飞行中的生物时才注册 (伤害、潜行、传送、摔落等高频事件)，
+ * 全服空闲一段时间后自动注销，空闲的服务器只需承担 PlayerListener 中的抱起入口判断
+ */
+public class SessionListener implements Listener {
+    // 空闲超过此时间才注销，避免频繁注册/注销
+    private static final long IDLE_GRACE_MILLIS = 5000L;
+
+    private final MobLaunch plugin;
+    private volatile boolean registered = false;
+    private long idleSince = -1L;
+
+    public SessionListener(MobLaunch plugin) {
+        this.plugin = plugin;
+
+        try {
+            Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, (t) -> checkIdle(), 20L, 20L);
+        } catch (Throwable e) {
+            Bukkit.getScheduler().runTaskTimer(plugin, this::checkIdle, 20L, 20L);
+        }
+    }
+
+    /**
+     * 确保监听器已注册，在创建会话或登记飞行生物之后调用
+     */
+    public void ensureRegistered() {
+        if (registered)
+            return;
+        synchronized (this) {
+            if (!registered) {
+                Bukkit.getPluginManager().registerEvents(this, plugin);
+                registered = true;
+            }
+        }
+    }
+
+    public boolean isRegistered() {
+        return registered;
+    }
+
+    private boolean isIdle() {
+        MobManager mobManager = plugin.getMobManager();
+        return mobManager.getSessions().isEmpty() && mobManager.getLaunchRegistry().isEmpty()
+                && mobManager.getPickupPipeline().isEmpty() && mobManager.getLaunchBudget().getInFlight() == 0;
+    }
+
+    private void checkIdle() {
+        if (!registered)
+            return;
+        if (!isIdle()) {
+            idleSince = -1L;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (idleSince < 0) {
+            idleSince = now;
+            return;
+        }
+        if (now - idleSince < IDLE_GRACE_MILLIS)
+            return;
+
+        synchronized (this) {
+            // 先置为未注册再复查：与 ensureRegistered 并发时，新会话要么在此处被看到，要么会重新注册
+            registered = false;
+            if (!isIdle()) {
+                registered = true;
+                return;
+            }
+            HandlerList.unregisterAll(this);
+        }
+        idleSince = -1L;
+    }
+
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onEntityDamage(EntityDamageEvent event) {
+        if (event.getCause() != EntityDamageEvent.DamageCause.FALL)
+            return;
+        plugin.getMobManager().getLaunchBudget().release(event.getEntity().getEntityId());
+        // 只免除投掷后的第一次摔落伤害
+        if (plugin.getMobManager().getLaunchRegistry().remove(event.getEntity().getEntityId())) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler
+    public void onEntityRemove(EntityRemoveFromWorldEvent event) {
+        plugin.getMobManager().getLaunchRegistry().remove(event.getEntity().getEntityId());
+        plugin.getMobManager().getLaunchBudget().release(event.getEntity().getEntityId());
+        plugin.getMobManager().getPickupPipeline().cancelEntity(event.getEntity().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
+    public void onPlayerInteractWithHeldEntity(PlayerInteractEntityEvent event) {
+        Player player = event.getPlayer();
+        if (plugin.getMobManager().isHeldBy(player, event.getRightClicked())) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPlayerDamageHeldEntity(EntityDamageByEntityEvent event) {
+        if (event.isCancelled())
+            return;
+        if (event.getDamager() instanceof Player) {
+            Player player = (Player) event.getDamager();
+            if (plugin.getMobManager().isHeldBy(player, event.getEntity())) {
+                event.setCancelled(true);
+            }
+        }
+    }
+
+    @EventHandler
+    public void onPlayerToggleSneak(PlayerToggleSneakEvent event) {
+        Player player = event.getPlayer();
+        if (!plugin.getMobManager().isPlayerHoldingMob(player))
+            return;
+        if (event.isSneaking()) {
+            if (!PlayerListener.isHandsEmpty(player))
+                return;
+            if (!plugin.getMobManager().acceptSneakPress(player))
+                return;
+            plugin.getMobManager().startCharging(player);
+        } else {
+            plugin.getMobManager().stopChargingAndLaunch(player);
+        }
+    }
+
+    @EventHandler
+    public void onPlayerDeath(PlayerDeathEvent event) {
+        // 强制执行放下逻辑，清理插件内部状态
+        Player player = event.getEntity();
+        plugin.getMobManager().getPickupPipeline().cancelPlayer(player.getUniqueId());
+        if (plugin.getMobManager().isPlayerHoldingMob(player)) {
+            plugin.getMobManager().putdownMob(player);
+        }
+    }
+
+    @EventHandler
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        // 传送后原先的抱起目标位置已失效
+        plugin.getMobManager().getPickupPipeline().cancelPlayer(event.getPlayer().getUniqueId());
+        // 传送时强制放下，防止Bug
+        if (event.getFrom().getWorld() != event.getTo().getWorld()) {
+            Player player = event.getPlayer();
+            if (plugin.getMobManager().isPlayerHoldingMob(player)) {
+                plugin.getMobManager().putdownMob(player);
+            }
+        }
+    }
+}
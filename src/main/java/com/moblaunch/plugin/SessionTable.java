@@ -0,0 +1,102 @@
+package com.moblaunch.plugin;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 玩家会话表
+ * Folia 下抱起、蓄力和监听器分别运行在不同的区域线程上，
+ * 这里使用 ConcurrentHashMap (读无锁、写按桶加锁) 保存所有会话，
+ * 调用方一次查找即可拿到会话内的全部状态
+ * 同时维护 实体 -> 会话 的反向索引，使 "生物是否被抱起" 的判断也是常数时间
+ * 玩家的动作限流状态也保存在这里 (与会话独立，抱起之前就需要)，玩家退出时移除
+ */
+public class SessionTable {
+    private final ConcurrentHashMap<UUID, PlayerSession> sessions;
+    private final ConcurrentHashMap<UUID, PlayerSession> byEntity;
+    private final ConcurrentHashMap<UUID, ActionLimiter> limiters;
+
+    public SessionTable() {
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        this.sessions = new ConcurrentHashMap<>(64, 0.75f, concurrency);
+        this.byEntity = new ConcurrentHashMap<>(64, 0.75f, concurrency);
+        this.limiters = new ConcurrentHashMap<>(64, 0.75f, concurrency);
+    }
+
+    public PlayerSession get(UUID playerId) {
+        return sessions.get(playerId);
+    }
+
+    /**
+     * 通过被抱起的实体反查会话
+     */
+    public PlayerSession getByEntity(UUID entityId) {
+        return byEntity.get(entityId);
+    }
+
+    /**
+     * 为玩家创建新会话，返回被替换的旧会话 (如果有)
+     */
+    public PlayerSession open(Player player, Entity entity) {
+        PlayerSession session = new PlayerSession(player, entity);
+        PlayerSession old = sessions.put(session.getPlayerId(), session);
+        if (old != null)
+            byEntity.remove(old.getEntityId(), old);
+        byEntity.put(session.getEntityId(), session);
+        return old;
+    }
+
+    /**
+     * 移除玩家会话
+     */
+    public PlayerSession remove(UUID playerId) {
+        PlayerSession session = sessions.remove(playerId);
+        if (session != null)
+            byEntity.remove(session.getEntityId(), session);
+        return session;
+    }
+
+    /**
+     * 仅当当前会话仍为 session 时移除，避免误删并发创建的新会话
+     */
+    public boolean remove(PlayerSession session) {
+        byEntity.remove(session.getEntityId(), session);
+        return sessions.remove(session.getPlayerId(), session);
+    }
+
+    /**
+     * 获取玩家的限流状态，首次使用时创建
+     */
+    public ActionLimiter limiter(UUID playerId) {
+        ActionLimiter limiter = limiters.get(playerId);
+        if (limiter == null)
+            limiter = limiters.computeIfAbsent(playerId, k -> new ActionLimiter());
+        return limiter;
+    }
+
+    public void removeLimiter(UUID playerId) {
+        limiters.remove(playerId);
+    }
+
+    public Collection<PlayerSession> all() {
+        return sessions.values();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public boolean isEmpty() {
+        return sessions.isEmpty();
+    }
+
+    public void clear() {
+        sessions.clear();
+        byEntity.clear();
+        limiters.clear();
+    }
+}
@@ -0,0 +1,162 @@
+package com.moblaunch.plugin;
+
+import java.util.Arrays;
+
+/**
+ * 均匀网格空间哈希
+ * 每 tick 清空后重新插入全部条目 (以整数编号表示，坐标由调用方保存)，
+ * 查询只遍历半径覆盖的格子，开销与局部密度成正比；清空只递增版本号，重建过程不分配对象
+ * 不是线程安全的，每个飞行批次各自持有一个
+ */
+final class SpatialGrid {
+    private static final int EMPTY = -1;
+
+    private final double inverseCell;
+
+    // 开放寻址表：格子坐标 -> 链表头
+    private long[] keys = new long[64];
+    private int[] heads = new int[64];
+    private int[] stamps = new int[64];
+    private int mask = 63;
+    private int epoch = 1;
+    private int cells;
+
+    // 条目链表
+    private int[] next = new int[32];
+    private int[] items = new int[32];
+    private int count;
+
+    private int[] result = new int[16];
+    private int resultSize;
+
+    SpatialGrid(double cellSize) {
+        this.inverseCell = 1.0 / cellSize;
+    }
+
+    /**
+     * 清空网格，expected 为即将插入的条目数 (用于预先扩容)
+     */
+    void clear(int expected) {
+        count = 0;
+        cells = 0;
+        if (expected * 2 > keys.length) {
+            int capacity = Integer.highestOneBit(expected * 4 - 1) << 1;
+            keys = new long[capacity];
+            heads = new int[capacity];
+            stamps = new int[capacity];
+            mask = capacity - 1;
+            epoch = 1;
+        } else if (++epoch == 0) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+        if (expected > next.length) {
+            next = new int[expected];
+            items = new int[expected];
+        }
+    }
+
+    void insert(int item, double x, double y, double z) {
+        long key = key(cell(x), cell(y), cell(z));
+        int slot = slot(key, true);
+        if (count == next.length) {
+            next = Arrays.copyOf(next, count * 2);
+            items = Arrays.copyOf(items, count * 2);
+        }
+        items[count] = item;
+        next[count] = heads[slot];
+        heads[slot] = count;
+        count++;
+    }
+
+    /**
+     * 查询与以 (x, y, z) 为中心、radius 为半径的立方体相交的格子中的全部条目
+     * 结果通过 resultSize / resultAt 读取，调用方自行做精确的距离判断
+     */
+    void query(double x, double y, double z, double radius) {
+        resultSize = 0;
+        int x0 = cell(x - radius), x1 = cell(x + radius);
+        int y0 = cell(y - radius), y1 = cell(y + radius);
+        int z0 = cell(z - radius), z1 = cell(z + radius);
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                for (int cz = z0; cz <= z1; cz++) {
+                    int slot = slot(key(cx, cy, cz), false);
+                    if (slot < 0)
+                        continue;
+                    for (int e = heads[slot]; e != EMPTY; e = next[e]) {
+                        if (resultSize == result.length)
+                            result = Arrays.copyOf(result, resultSize * 2);
+                        result[resultSize++] = items[e];
+                    }
+                }
+            }
+        }
+    }
+
+    int resultSize() {
+        return resultSize;
+    }
+
+    int resultAt(int i) {
+        return result[i];
+    }
+
+    private int cell(double v) {
+        return (int) Math.floor(v * inverseCell);
+    }
+
+    private static long key(int cx, int cy, int cz) {
+        return ((long) (cx & 0x1FFFFF) << 42) | ((long) (cy & 0x1FFFFF) << 21) | (cz & 0x1FFFFF);
+    }
+
+    private int slot(long key, boolean create) {
+        int i = mix(key) & mask;
+        while (true) {
+            if (stamps[i] != epoch) {
+                if (!create)
+                    return -1;
+                if ((cells + 1) * 2 > keys.length) {
+                    rehash();
+                    return slot(key, true);
+                }
+                stamps[i] = epoch;
+                keys[i] = key;
+                heads[i] = EMPTY;
+                cells++;
+                return i;
+            }
+            if (keys[i] == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        int[] oldStamps = stamps;
+        int oldEpoch = epoch;
+        int capacity = keys.length * 2;
+        keys = new long[capacity];
+        heads = new int[capacity];
+        stamps = new int[capacity];
+        mask = capacity - 1;
+        epoch = 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] != oldEpoch)
+                continue;
+            int j = mix(oldKeys[i]) & mask;
+            while (stamps[j] == epoch)
+                j = (j + 1) & mask;
+            stamps[j] = epoch;
+            keys[j] = oldKeys[i];
+            heads[j] = oldHeads[i];
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
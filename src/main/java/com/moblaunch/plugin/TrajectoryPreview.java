@@ -0,0 +1,192 @@
+package com.moblaunch.plugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.FluidCollisionMode;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.util.RayTraceResult;
+import org.bukkit.util.Vector;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 轨迹预览
+ * 蓄力期间只向投掷者本人显示预计的飞行弧线：从预先计算的轨迹表中按蓄力百分比和俯仰角取出轨迹，
+ * 按玩家朝向旋转后分段做射线检测找到第一个撞到的方块，不在运行时模拟物理
+ * 粒子数受每位玩家和每个区域 (与投掷预算相同的网格) 的预算限制，区域预算紧张时加大取点间隔，弧线变稀而不是消失
+ */
+public class TrajectoryPreview {
+    private static final long TICK_NANOS = 50_000_000L;
+    // 长时间没有绘制的网格在清理时移除
+    private static final long IDLE_CELL_NANOS = 10_000_000_000L;
+    // 每段射线检测覆盖的 tick 数
+    private static final int SEGMENT_TICKS = 4;
+
+    private final MobLaunch plugin;
+    private final boolean folia;
+    private final Map<UUID, Map<Long, Cell>> worlds = new ConcurrentHashMap<>();
+
+    public TrajectoryPreview(MobLaunch plugin) {
+        this.plugin = plugin;
+        this.folia = ChargeDriver.isFolia();
+
+        try {
+            Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, (t) -> sweep(), 200L, 200L);
+        } catch (Throwable e) {
+            Bukkit.getScheduler().runTaskTimer(plugin, this::sweep, 200L, 200L);
+        }
+    }
+
+    private static final class Cell {
+        long window;
+        int used;
+        long lastUsed;
+    }
+
+    /**
+     * 在玩家所属线程上绘制一次预览 (由蓄力驱动每推进一步调用，按 preview.interval-ticks 间隔绘制)
+     */
+    void render(PlayerSession session, Player player, ConfigSnapshot cfg, WorldSettings world) {
+        if (++session.previewTicks < cfg.getPreviewIntervalTicks())
+            return;
+        session.previewTicks = 0;
+        int percent = session.getChargePercent();
+        if (percent <= 0)
+            return;
+        Entity entity = session.getEntity();
+        TrajectoryTable table = cfg.trajectory(world, entity.getType());
+        if (table == null)
+            return;
+
+        Location eye = player.getLocation();
+        Location origin = entity.getLocation();
+        World w = origin.getWorld();
+        double yaw = Math.toRadians(eye.getYaw());
+        double dirX = -Math.sin(yaw);
+        double dirZ = Math.cos(yaw);
+        int base = table.index(percent, eye.getPitch());
+        double ox = origin.getX(), oy = origin.getY(), oz = origin.getZ();
+
+        // 分段射线检测：找到第一个撞到的方块，超出已加载 (Folia 上为本区域) 的范围时截断
+        int end = table.ticks();
+        Vector hit = null;
+        double px = ox, py = oy, pz = oz;
+        for (int from = -1; from < end - 1;) {
+            int to = Math.min(from + SEGMENT_TICKS, end - 1);
+            double h = table.horizontalAt(base + to);
+            double qx = ox + h * dirX, qy = oy + table.verticalAt(base + to), qz = oz + h * dirZ;
+            if (!canTest(w, qx, qz)) {
+                end = from + 1;
+                break;
+            }
+            double dx = qx - px, dy = qy - py, dz = qz - pz;
+            double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (length > 1.0E-4) {
+                RayTraceResult result = w.rayTraceBlocks(new Location(w, px, py, pz), new Vector(dx, dy, dz),
+                        length, FluidCollisionMode.ALWAYS, true);
+                if (result != null) {
+                    hit = result.getHitPosition();
+                    double reached = hit.distance(new Vector(px, py, pz)) / length;
+                    end = from + 1 + (int) (reached * (to - from));
+                    break;
+                }
+            }
+            px = qx;
+            py = qy;
+            pz = qz;
+            from = to;
+        }
+
+        int points = end + (hit != null ? 1 : 0);
+        if (points <= 0)
+            return;
+        int granted = acquire(w.getUID(), origin, Math.min(points, cfg.getPreviewPlayerParticles()), cfg);
+        if (granted <= 0)
+            return;
+
+        Particle particle = cfg.getPreviewParticle();
+        if (hit != null) {
+            player.spawnParticle(particle, hit.getX(), hit.getY(), hit.getZ(), 1, 0, 0, 0, 0);
+            granted--;
+        }
+        if (granted <= 0 || end <= 0)
+            return;
+        // 预算不足以画出每个点时等间隔取点，保留末端
+        int stride = (end + granted - 1) / granted;
+        for (int t = end - 1; t >= 0; t -= stride) {
+            double h = table.horizontalAt(base + t);
+            player.spawnParticle(particle, ox + h * dirX, oy + table.verticalAt(base + t), oz + h * dirZ, 1,
+                    0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * 只在已加载的区块 (Folia 上还需属于当前区域) 内做射线检测，避免同步加载区块或跨区域访问
+     */
+    private boolean canTest(World world, double x, double z) {
+        int cx = (int) Math.floor(x) >> 4;
+        int cz = (int) Math.floor(z) >> 4;
+        if (!world.isChunkLoaded(cx, cz))
+            return false;
+        return !folia || Bukkit.isOwnedByCurrentRegion(world, cx, cz);
+    }
+
+    /**
+     * 从所在网格本 tick 的粒子预算中申请，返回实际可用的数量
+     * 网格预算用掉一半后每位玩家只能申请一半，使后来的玩家仍能看到稀疏的弧线
+     */
+    private int acquire(UUID worldId, Location loc, int want, ConfigSnapshot cfg) {
+        int limit = cfg.getPreviewRegionParticles();
+        if (limit <= 0)
+            return want;
+        int shift = cfg.getLaunchRegionShift();
+        Cell cell = cell(worldId, (loc.getBlockX() >> 4) >> shift, (loc.getBlockZ() >> 4) >> shift);
+        long now = System.nanoTime();
+        long window = now / TICK_NANOS;
+        synchronized (cell) {
+            cell.lastUsed = now;
+            if (cell.window != window) {
+                cell.window = window;
+                cell.used = 0;
+            }
+            if (cell.used * 2 > limit)
+                want = (want + 1) / 2;
+            int granted = Math.min(want, limit - cell.used);
+            if (granted <= 0)
+                return 0;
+            cell.used += granted;
+            return granted;
+        }
+    }
+
+    private Cell cell(UUID worldId, int x, int z) {
+        Map<Long, Cell> cells = worlds.computeIfAbsent(worldId, k -> new ConcurrentHashMap<>());
+        long key = ((long) x << 32) | (z & 0xFFFFFFFFL);
+        Cell cell = cells.get(key);
+        if (cell == null)
+            cell = cells.computeIfAbsent(key, k -> new Cell());
+        return cell;
+    }
+
+    private void sweep() {
+        if (worlds.isEmpty())
+            return;
+        long now = System.nanoTime();
+        for (Map<Long, Cell> cells : worlds.values()) {
+            cells.values().removeIf(cell -> {
+                synchronized (cell) {
+                    return now - cell.lastUsed > IDLE_CELL_NANOS;
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+}
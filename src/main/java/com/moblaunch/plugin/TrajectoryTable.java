@@ -0,0 +1,93 @@
+package com.moblaunch.plugin;
+
+/**
+ * 预先计算的投掷轨迹表 (不可变)
+ * 对一个 (世界参数, 投掷档案) 组合，按 (蓄力百分比档位, 俯仰角档位) 保存投掷后每 tick 的位置，
+ * 位置以出手点为原点、沿视线水平方向展开为 (水平距离, 高度) 两个分量，预览时按玩家朝向旋转即可
+ * 模拟与原版生物在空中的运动一致：先移动，再受重力 (0.08) 与空气阻力 (垂直 0.98，水平 0.91)，另加档案的 drag
+ */
+final class TrajectoryTable {
+    // 蓄力百分比按 10% 分档 (10%, 20%, ..., 100%)
+    static final int PERCENT_BUCKETS = 10;
+    // 俯仰角按 5 度分档 (-90 到 90)
+    static final int PITCH_STEP = 5;
+    static final int PITCH_BUCKETS = 180 / PITCH_STEP + 1;
+
+    private static final double GRAVITY = 0.08;
+    private static final double VERTICAL_DRAG = 0.98;
+    private static final double HORIZONTAL_DRAG = 0.91;
+
+    private final int ticks;
+    private final float[] horizontal;
+    private final float[] vertical;
+
+    private TrajectoryTable(int ticks, float[] horizontal, float[] vertical) {
+        this.ticks = ticks;
+        this.horizontal = horizontal;
+        this.vertical = vertical;
+    }
+
+    /**
+     * 计算全部档位的轨迹，出手速度的算法与 MobManager 投掷时一致
+     */
+    static TrajectoryTable compile(WorldSettings world, LaunchProfile profile, int ticks) {
+        int size = PERCENT_BUCKETS * PITCH_BUCKETS * ticks;
+        float[] horizontal = new float[size];
+        float[] vertical = new float[size];
+        double keep = 1 - profile.getDrag();
+        double maxSpeed = profile.getMaxSpeed();
+
+        for (int p = 0; p < PERCENT_BUCKETS; p++) {
+            double scale = (p + 1) / (double) PERCENT_BUCKETS * profile.getInverseMass();
+            for (int b = 0; b < PITCH_BUCKETS; b++) {
+                // Minecraft 的俯仰角向下为正
+                double elevation = Math.toRadians(90 - b * PITCH_STEP);
+                double vh = Math.cos(elevation) * world.getVelocityMultiplier() * scale;
+                double vy = (Math.sin(elevation) * world.getVelocityMultiplier() + world.getVerticalBias()
+                        + profile.getVerticalBias()) * scale;
+                double speedSq = vh * vh + vy * vy;
+                if (speedSq > maxSpeed * maxSpeed) {
+                    double cap = maxSpeed / Math.sqrt(speedSq);
+                    vh *= cap;
+                    vy *= cap;
+                }
+
+                int base = (p * PITCH_BUCKETS + b) * ticks;
+                double h = 0, y = 0;
+                for (int t = 0; t < ticks; t++) {
+                    h += vh;
+                    y += vy;
+                    horizontal[base + t] = (float) h;
+                    vertical[base + t] = (float) y;
+                    vy = (vy - GRAVITY) * VERTICAL_DRAG * keep;
+                    vh = vh * HORIZONTAL_DRAG * keep;
+                }
+            }
+        }
+        return new TrajectoryTable(ticks, horizontal, vertical);
+    }
+
+    /**
+     * 每条轨迹保存的 tick 数
+     */
+    int ticks() {
+        return ticks;
+    }
+
+    /**
+     * 取得对应档位轨迹的起始下标，percent 为 1-100，pitch 为 -90 到 90
+     */
+    int index(int percent, float pitch) {
+        int p = Math.max(0, Math.min(PERCENT_BUCKETS - 1, (percent + 5) / 10 - 1));
+        int b = Math.max(0, Math.min(PITCH_BUCKETS - 1, Math.round((pitch + 90) / PITCH_STEP)));
+        return (p * PITCH_BUCKETS + b) * ticks;
+    }
+
+    float horizontalAt(int index) {
+        return horizontal[index];
+    }
+
+    float verticalAt(int index) {
+        return vertical[index];
+    }
+}
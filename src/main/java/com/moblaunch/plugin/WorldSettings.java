@@ -0,0 +1,187 @@
+package com.moblaunch.plugin;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.EntityType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * 单个世界生效的参数表 (不可变)
+ * 全局配置编译为默认表，worlds 下每个世界的覆盖项在加载时与默认表合并为一张完整的表，
+ * 运行时按世界取出后直接读取字段，允许的生物按 EntityType 序号存为位图
+ */
+public final class WorldSettings {
+    private static final int WORDS = (EntityType.values().length + 63) >>> 6;
+
+    private final String name;
+    private final int index;
+    private final long[] allowedMobs;
+
+    // 物理参数
+    private final double velocityMultiplier;
+    private final double verticalBias;
+
+    // 蓄力参数
+    private final int chargeStep;
+    private final int chargeIncrementTicks;
+    private final int pauseAtMaxTicks;
+    private final int pauseAtZeroTicks;
+    private final ChargeCurve.Shape chargeShape;
+    private final List<Integer> chargePoints;
+    private final ChargeCurve chargeCurve;
+
+    // 落地保护
+    private final boolean disableFallDamage;
+    private final long landingGraceMillis;
+
+    /**
+     * @param name    世界名，默认表为 null
+     * @param index   在快照中的序号，默认表为 0，用于索引按世界编译的其他表
+     * @param config  读取的配置节点：默认表为配置根节点，覆盖表为 worlds.&lt;世界名&gt;
+     * @param base    覆盖表未设置的项从此表继承，编译默认表时为 null
+     */
+    private WorldSettings(String name, int index, ConfigurationSection config, WorldSettings base,
+            Logger logger) {
+        this.name = name;
+        this.index = index;
+
+        if (base == null || config.isList("allowed-mobs"))
+            allowedMobs = compileAllowedMobs(config, logger);
+        else
+            allowedMobs = base.allowedMobs;
+
+        velocityMultiplier = config.getDouble("launch.velocity-multiplier",
+                base != null ? base.velocityMultiplier : 1.8);
+        verticalBias = config.getDouble("launch.vertical-bias", base != null ? base.verticalBias : 0.3);
+
+        chargeStep = Math.max(1, Math.min(100,
+                config.getInt("charge.step-percentage", base != null ? base.chargeStep : 5)));
+        chargeIncrementTicks = Math.max(1,
+                config.getInt("charge.increment-ticks", base != null ? base.chargeIncrementTicks : 1));
+        pauseAtMaxTicks = Math.max(0,
+                config.getInt("charge.pause-at-max-ticks", base != null ? base.pauseAtMaxTicks : 15));
+        pauseAtZeroTicks = Math.max(0,
+                config.getInt("charge.pause-at-zero-ticks", base != null ? base.pauseAtZeroTicks : 15));
+        chargeShape = config.isString("charge.curve") || base == null
+                ? ChargeCurve.parseShape(config.getString("charge.curve"), logger)
+                : base.chargeShape;
+        chargePoints = config.isList("charge.points") || base == null
+                ? compilePoints(config.getIntegerList("charge.points"))
+                : base.chargePoints;
+        chargeCurve = ChargeCurve.compile(chargeShape, chargePoints, chargeStep, chargeIncrementTicks,
+                pauseAtMaxTicks, pauseAtZeroTicks, logger);
+
+        disableFallDamage = config.getBoolean("protection.disable-fall-damage",
+                base != null ? base.disableFallDamage : true);
+        landingGraceMillis = (long) (Math.max(0, config.getDouble("protection.landing-grace-seconds",
+                base != null ? base.landingGraceMillis / 1000.0 : 10)) * 1000);
+    }
+
+    /**
+     * 编译全局默认表
+     */
+    static WorldSettings compileDefaults(ConfigurationSection root, Logger logger) {
+        return new WorldSettings(null, 0, root, null, logger);
+    }
+
+    /**
+     * 将一个世界的覆盖项与默认表合并
+     */
+    static WorldSettings compileOverride(String name, int index, ConfigurationSection section,
+            WorldSettings base, Logger logger) {
+        return new WorldSettings(name, index, section, base, logger);
+    }
+
+    private static List<Integer> compilePoints(List<Integer> points) {
+        List<Integer> result = new ArrayList<>(points.size());
+        for (Integer point : points)
+            result.add(Math.max(0, Math.min(100, point)));
+        return Collections.unmodifiableList(result);
+    }
+
+    private static long[] compileAllowedMobs(ConfigurationSection config, Logger logger) {
+        long[] bits = new long[WORDS];
+        List<String> mobStrings = config.getStringList("allowed-mobs");
+        for (String mobString : mobStrings) {
+            try {
+                int ord = EntityType.valueOf(mobString.toUpperCase()).ordinal();
+                bits[ord >>> 6] |= 1L << ord;
+            } catch (IllegalArgumentException e) {
+                logger.warning("无效的生物类型: " + mobString);
+            }
+        }
+        if (mobStrings.isEmpty()) {
+            int ord = EntityType.PIG.ordinal();
+            bits[ord >>> 6] |= 1L << ord;
+        }
+        return bits;
+    }
+
+    /**
+     * 世界名，全局默认表返回 null
+     */
+    public String getName() {
+        return name;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * 出手速度的计算参数是否与另一张表相同 (相同时可以共用轨迹表)
+     */
+    boolean hasSameLaunch(WorldSettings other) {
+        return velocityMultiplier == other.velocityMultiplier && verticalBias == other.verticalBias;
+    }
+
+    public boolean isMobAllowed(EntityType type) {
+        int ord = type.ordinal();
+        return (allowedMobs[ord >>> 6] & (1L << ord)) != 0;
+    }
+
+    public double getVelocityMultiplier() {
+        return velocityMultiplier;
+    }
+
+    public double getVerticalBias() {
+        return verticalBias;
+    }
+
+    public int getChargeStep() {
+        return chargeStep;
+    }
+
+    public int getChargeIncrementTicks() {
+        return chargeIncrementTicks;
+    }
+
+    public int getPauseAtMaxTicks() {
+        return pauseAtMaxTicks;
+    }
+
+    public int getPauseAtZeroTicks() {
+        return pauseAtZeroTicks;
+    }
+
+    /**
+     * 预先展开的蓄力周期表
+     */
+    public ChargeCurve getChargeCurve() {
+        return chargeCurve;
+    }
+
+    public boolean isDisableFallDamage() {
+        return disableFallDamage;
+    }
+
+    /**
+     * 投掷后的落地免伤宽限期 (毫秒)
+     */
+    public long getLandingGraceMillis() {
+        return landingGraceMillis;
+    }
+}
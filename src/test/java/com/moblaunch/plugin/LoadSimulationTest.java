@@ -0,0 +1,252 @@
+package com.moblaunch.plugin;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.WorldMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import org.bukkit.Location;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.damage.DamageSource;
+import org.bukkit.damage.DamageType;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.player.PlayerToggleSneakEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 负载模拟
+ * 在模拟服务器上让 N 名玩家反复 抱起 -> 蓄力 -> 投掷 -> 落地，全部通过事件驱动 PlayerListener / SessionListener；
+ * 之后在蓄力途中让一半玩家死亡、另一半跨世界传送，确认会话被强制放下，最后让玩家全部退出并确认没有残留
+ * 报告插件自身记录的蓄力驱动与飞行批次耗时 (Metrics)，以及模拟服务器整 tick 的主线程分配量和各内部表的峰值
+ * 不在默认构建中运行: mvn -Pload-test test -Dmoblaunch.sim.players=200 -Dmoblaunch.sim.rounds=10
+ */
+@Tag("load")
+public class LoadSimulationTest {
+    private static final Logger LOGGER = Logger.getLogger(LoadSimulationTest.class.getName());
+
+    private static final int PLAYERS = Integer.getInteger("moblaunch.sim.players", 50);
+    private static final int ROUNDS = Integer.getInteger("moblaunch.sim.rounds", 5);
+    private static final int CHARGE_TICKS = 30;
+    // 超过 launch-limits.queue-ticks 与 flight-timeout-seconds，排队与飞行中的生物都会结束
+    private static final int FLIGHT_TICKS = 200;
+    private static final int DRAIN_TICKS = 40;
+
+    private ServerMock server;
+    private WorldMock world;
+    private WorldMock otherWorld;
+    private MobLaunch plugin;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // 逐 tick 统计 (预热轮之后)
+    private long ticks;
+    private long allocatedBytes;
+    private int peakSessions;
+    private int peakRegistry;
+    private int peakInFlight;
+    private int peakPending;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = MockBukkit.mock();
+        world = server.addSimpleWorld("world");
+        otherWorld = server.addSimpleWorld("world_other");
+        plugin = MockBukkit.load(MobLaunch.class);
+
+        // 模拟中所有动作在同一瞬间发生，关闭按真实时间恢复的限流，其余使用默认配置
+        File file = new File(plugin.getDataFolder(), "config.yml");
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        yaml.set("rate-limits.enabled", false);
+        yaml.save(file);
+        plugin.getConfigManager().reload(false);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    public void sessionsAndLaunchesDrainAfterLoad() {
+        MobManager mobManager = plugin.getMobManager();
+        PlayerMock[] players = new PlayerMock[PLAYERS];
+        Entity[] mobs = new Entity[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            // 分散在多个区块和投掷预算网格中
+            Location spot = new Location(world, (i % 10) * 24.5, 64, (i / 10) * 24.5);
+            players[i] = server.addPlayer();
+            players[i].teleport(spot);
+            mobs[i] = world.spawnEntity(spot.clone().add(1, 0, 0), EntityType.PIG);
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            // 第一轮作为预热，不计入统计
+            if (round == 1) {
+                plugin.getMetrics().reset();
+                ticks = 0;
+                allocatedBytes = 0;
+            }
+
+            for (int i = 0; i < PLAYERS; i++) {
+                if (!mobs[i].isValid())
+                    mobs[i] = world.spawnEntity(players[i].getLocation().add(1, 0, 0), EntityType.PIG);
+                pickup(players[i], mobs[i]);
+            }
+            tick(2);
+
+            for (PlayerMock player : players)
+                sneak(player, true);
+            tick(CHARGE_TICKS);
+
+            for (PlayerMock player : players)
+                sneak(player, false);
+            tick(FLIGHT_TICKS);
+
+            // 落地：摔落伤害消耗飞行登记
+            for (Entity mob : mobs)
+                land(mob);
+            tick(1);
+        }
+
+        Metrics metrics = plugin.getMetrics();
+        assertTrue(metrics.getPickups() > 0, "模拟中没有成功抱起");
+        assertTrue(metrics.getLaunches() > 0, "模拟中没有成功投掷");
+        assertTrue(metrics.getChargeTicks() > 0, "模拟中蓄力驱动没有执行");
+        // 报告只覆盖投掷循环，死亡与传送阶段不计入
+        long loopTicks = ticks;
+        long loopAllocated = allocatedBytes;
+
+        // 蓄力途中死亡或跨世界传送：会话必须被强制放下
+        for (int i = 0; i < PLAYERS; i++) {
+            if (!mobs[i].isValid())
+                mobs[i] = world.spawnEntity(players[i].getLocation().add(1, 0, 0), EntityType.PIG);
+            pickup(players[i], mobs[i]);
+        }
+        tick(2);
+        for (PlayerMock player : players)
+            sneak(player, true);
+        tick(CHARGE_TICKS / 2);
+        for (int i = 0; i < PLAYERS; i++) {
+            if (i % 2 == 0)
+                die(players[i]);
+            else
+                teleportAway(players[i]);
+        }
+        tick(2);
+        for (PlayerMock player : players)
+            assertFalse(mobManager.isPlayerHoldingMob(player), "死亡或传送后仍在抱着生物: " + player.getName());
+        assertTrue(mobManager.getSessions().isEmpty(), "死亡或传送后会话未清空: " + mobManager.getSessions().size());
+        assertEquals(0, mobManager.getChargeDriver().getActiveCount(), "死亡或传送后蓄力驱动仍有会话");
+        assertTrue(metrics.getPutdowns() > 0, "死亡或传送没有触发放下");
+
+        // 全部退出后各表都应清空
+        for (PlayerMock player : players)
+            player.disconnect();
+        tick(DRAIN_TICKS);
+
+        int leaked = mobManager.countLeakedSessions();
+        report(metrics, loopTicks, loopAllocated, leaked);
+
+        assertEquals(0, leaked, "残留会话");
+        assertTrue(mobManager.getSessions().isEmpty(), "会话表未清空: " + mobManager.getSessions().size());
+        assertTrue(mobManager.getLaunchRegistry().isEmpty(),
+                "飞行登记表未清空: " + mobManager.getLaunchRegistry().size());
+        assertTrue(mobManager.getPickupPipeline().isEmpty(), "抱起流水线未清空: " + mobManager.getPickupPipeline().size());
+        assertTrue(mobManager.getFlightTracker().isEmpty(), "飞行追踪未清空: " + mobManager.getFlightTracker().size());
+        assertEquals(0, mobManager.getLaunchBudget().getInFlight(), "投掷预算未归还");
+        assertEquals(0, mobManager.getChargeDriver().getActiveCount(), "蓄力驱动仍有会话");
+    }
+
+    private void pickup(PlayerMock player, Entity mob) {
+        player.setSneaking(true);
+        server.getPluginManager().callEvent(new PlayerInteractEntityEvent(player, mob, EquipmentSlot.HAND));
+        player.setSneaking(false);
+    }
+
+    private void sneak(PlayerMock player, boolean sneaking) {
+        player.setSneaking(sneaking);
+        server.getPluginManager().callEvent(new PlayerToggleSneakEvent(player, sneaking));
+    }
+
+    private void die(PlayerMock player) {
+        server.getPluginManager().callEvent(new PlayerDeathEvent(player,
+                DamageSource.builder(DamageType.GENERIC).build(), new ArrayList<>(), 0, null));
+    }
+
+    private void teleportAway(PlayerMock player) {
+        Location from = player.getLocation();
+        Location to = new Location(otherWorld, from.getX(), from.getY(), from.getZ());
+        PlayerTeleportEvent event = new PlayerTeleportEvent(player, from, to, PlayerTeleportEvent.TeleportCause.PLUGIN);
+        server.getPluginManager().callEvent(event);
+        if (!event.isCancelled())
+            player.teleport(to);
+    }
+
+    private void land(Entity mob) {
+        if (!mob.isValid())
+            return;
+        server.getPluginManager().callEvent(new EntityDamageEvent(mob, EntityDamageEvent.DamageCause.FALL,
+                DamageSource.builder(DamageType.FALL).build(), 3.0));
+    }
+
+    /**
+     * 推进服务器 tick，记录主线程分配量和各表大小
+     * 插件自身的耗时由 Metrics 在蓄力驱动与飞行批次内部计时，这里不对整个模拟 tick 计时
+     */
+    private void tick(int count) {
+        MobManager mobManager = plugin.getMobManager();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < count; i++) {
+            long allocated = threads.getThreadAllocatedBytes(thread);
+            server.getScheduler().performOneTick();
+            allocatedBytes += threads.getThreadAllocatedBytes(thread) - allocated;
+            ticks++;
+
+            peakSessions = Math.max(peakSessions, mobManager.getSessions().size());
+            peakRegistry = Math.max(peakRegistry, mobManager.getLaunchRegistry().size());
+            peakInFlight = Math.max(peakInFlight, mobManager.getFlightTracker().size());
+            peakPending = Math.max(peakPending, mobManager.getPickupPipeline().size());
+        }
+    }
+
+    private void report(Metrics metrics, long loopTicks, long loopAllocated, int leaked) {
+        double chargeMicros = metrics.getAverageChargeTickMicros() * metrics.getChargeTicks();
+        double flightMicros = metrics.getAverageFlightTickMicros() * metrics.getFlightTicks();
+        LOGGER.info(String.format("[负载模拟] 玩家 %d, 轮数 %d, 统计 tick %d", PLAYERS, ROUNDS, loopTicks));
+        LOGGER.info(String.format("  插件耗时: 平均 %.2fus/tick (蓄力 %.2fus + 飞行 %.2fus)",
+                (chargeMicros + flightMicros) / loopTicks, chargeMicros / loopTicks, flightMicros / loopTicks));
+        LOGGER.info(String.format("  蓄力驱动: %d 次, 平均 %.2fus, 最大 %.2fus", metrics.getChargeTicks(),
+                metrics.getAverageChargeTickMicros(), metrics.getMaxChargeTickMicros()));
+        LOGGER.info(String.format("  飞行批次: %d 次, 平均 %.2fus", metrics.getFlightTicks(),
+                metrics.getAverageFlightTickMicros()));
+        LOGGER.info(String.format("  抱起耗时: 平均 %.2fms, 最大 %.2fms", metrics.getAveragePickupLatencyMillis(),
+                metrics.getMaxPickupLatencyMillis()));
+        // 分配量包含 MockBukkit 调度器自身，只适合在同一环境下前后对比
+        LOGGER.info(String.format("  模拟 tick 主线程分配: 平均 %.1fKB/tick (%.1fMB/s @20tps)",
+                loopAllocated / 1024.0 / loopTicks, loopAllocated / 1048576.0 / loopTicks * 20));
+        LOGGER.info(String.format("  抱起 %d, 放下 %d, 投掷 %d, 落地 %d, 接住 %d, 超时 %d", metrics.getPickups(),
+                metrics.getPutdowns(), metrics.getLaunches(), metrics.getLandings(), metrics.getCatches(),
+                metrics.getPickupTimedOut()));
+        LOGGER.info(String.format("  峰值: 会话 %d, 飞行登记 %d, 空中 %d, 抱起中 %d", peakSessions, peakRegistry,
+                peakInFlight, peakPending));
+        LOGGER.info(String.format("  残留会话 %d, 会话监听器已注册: %b", leaked, plugin.getSessionListener().isRegistered()));
+    }
+}